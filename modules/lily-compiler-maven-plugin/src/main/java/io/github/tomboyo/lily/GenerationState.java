@@ -0,0 +1,101 @@
+package io.github.tomboyo.lily;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * What the plugin generated last time, and from what. If the OAS document and configuration are
+ * unchanged and every generated file still exists, there is no need to generate sources again.
+ *
+ * @param specHash The SHA-256 of the OAS document.
+ * @param configuration A description of every setting which affects generated sources, including
+ *     the Lily build.
+ * @param files The generated source files, and the footprint report if one was written.
+ */
+record GenerationState(String specHash, String configuration, List<Path> files) {
+
+  /** Read the state saved by the previous execution, if any. */
+  static Optional<GenerationState> read(Path stateFile) {
+    if (!Files.isRegularFile(stateFile)) {
+      return Optional.empty();
+    }
+
+    var properties = new Properties();
+    try (var reader = Files.newBufferedReader(stateFile, UTF_8)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      // Treat an unreadable state file like a missing one; we'll just regenerate sources.
+      return Optional.empty();
+    }
+
+    var specHash = properties.getProperty("specHash");
+    var configuration = properties.getProperty("configuration");
+    var files = properties.getProperty("files");
+    if (specHash == null || configuration == null || files == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        new GenerationState(
+            specHash,
+            configuration,
+            files.isEmpty()
+                ? List.of()
+                : Arrays.stream(files.split("\n")).map(Paths::get).toList()));
+  }
+
+  void write(Path stateFile) {
+    var properties = new Properties();
+    properties.setProperty("specHash", specHash);
+    properties.setProperty("configuration", configuration);
+    properties.setProperty(
+        "files", String.join("\n", files.stream().map(Path::toString).sorted().toList()));
+
+    try {
+      Files.createDirectories(stateFile.getParent());
+      try (var writer = Files.newBufferedWriter(stateFile, UTF_8)) {
+        properties.store(writer, "Generated by lily-compiler-maven-plugin. Do not edit.");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to save generation state to " + stateFile, e);
+    }
+  }
+
+  /**
+   * True if sources generated from an OAS document with the given hash and configuration would be
+   * the same as the sources described by this state, and those sources all still exist.
+   */
+  boolean isUpToDate(String specHash, String configuration) {
+    return this.specHash.equals(specHash)
+        && this.configuration.equals(configuration)
+        && files.stream().allMatch(Files::isRegularFile);
+  }
+
+  /**
+   * Hash the file from a memory map, like the compiler reads it, rather than copy it to the heap.
+   */
+  static String sha256(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, READ)) {
+      var digest = MessageDigest.getInstance("SHA-256");
+      digest.update(channel.map(READ_ONLY, 0, channel.size()));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+    }
+  }
+}
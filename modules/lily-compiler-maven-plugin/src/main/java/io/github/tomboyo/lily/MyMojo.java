@@ -2,23 +2,37 @@ package io.github.tomboyo.lily;
 
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_SOURCES;
 
+import io.github.tomboyo.lily.compiler.CompileResult;
+import io.github.tomboyo.lily.compiler.CompilerOptions;
 import io.github.tomboyo.lily.compiler.LilyCompiler;
+import io.github.tomboyo.lily.compiler.LilyVersion;
 import io.github.tomboyo.lily.compiler.OasParseException;
-import java.net.MalformedURLException;
+import io.github.tomboyo.lily.compiler.icg.OperationFilter;
+import io.github.tomboyo.lily.compiler.oas.RemoteOasCache;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
-@Mojo(name = "compile-client", defaultPhase = GENERATE_SOURCES)
+@Mojo(name = "compile-client", defaultPhase = GENERATE_SOURCES, threadSafe = true)
 public class MyMojo extends AbstractMojo {
   @Parameter(defaultValue = "${project}")
   private MavenProject project;
 
-  @Parameter(property = "url", required = true)
+  /** The OAS document to compile. Use {@code specs} instead to compile several documents. */
+  @Parameter(property = "url")
   private String url;
 
   @Parameter(
@@ -27,17 +41,303 @@ public class MyMojo extends AbstractMojo {
       required = true)
   private String outputDirectory;
 
-  @Parameter(property = "basePackage", required = true)
+  /** The package in which to generate sources for {@code url}. */
+  @Parameter(property = "basePackage")
   private String basePackage;
 
+  /**
+   * OAS documents to compile, each into its own base package, in addition to {@code url}. All
+   * documents share the output directory and the other settings of this execution.
+   */
+  @Parameter private List<Spec> specs = List.of();
+
+  /**
+   * The maximum number of documents to compile at once. Defaults to the number of available
+   * processors.
+   */
+  @Parameter(property = "threads")
+  private Integer threads;
+
+  /**
+   * If set, parsed OAS documents are cached in this directory and re-used by later builds (and
+   * other modules) that compile the same document.
+   */
+  @Parameter(property = "snapshotDir")
+  private String snapshotDirectory;
+
+  /** If set, only operations with one of these tags are generated. */
+  @Parameter private List<String> includeTags = List.of();
+
+  /** Operations with any of these tags are not generated. */
+  @Parameter private List<String> excludeTags = List.of();
+
+  /** If set, only operations with one of these operationIds are generated. */
+  @Parameter private List<String> includeOperations = List.of();
+
+  /** Operations with any of these operationIds are not generated. */
+  @Parameter private List<String> excludeOperations = List.of();
+
+  /**
+   * If set, only operations whose path matches one of these globs (like /pets/**) are generated.
+   */
+  @Parameter private List<String> includePaths = List.of();
+
+  /** Operations whose path matches any of these globs are not generated. */
+  @Parameter private List<String> excludePaths = List.of();
+
+  /**
+   * The directory in which to keep local copies of remote OAS documents, along with their ETag and
+   * Last-Modified headers. Point this outside of the build directory (like
+   * ${user.home}/.cache/lily/specs) to keep copies after a clean.
+   */
+  @Parameter(
+      defaultValue = "${project.build.directory}/lily/specs",
+      property = "specCacheDir",
+      required = true)
+  private String specCacheDirectory;
+
+  /** If true, remote OAS documents are only read from the spec cache. Follows mvn --offline. */
+  @Parameter(defaultValue = "${settings.offline}", property = "offline")
+  private boolean offline;
+
+  /** The number of threads with which to evaluate each OAS document. */
+  @Parameter(property = "parallelism", defaultValue = "1")
+  private int parallelism;
+
+  /**
+   * If true, structurally identical inline object schemas, like the request bodies of similar
+   * operations, generate one shared type instead of one type each.
+   */
+  @Parameter(property = "deduplicateInlineSchemas", defaultValue = "false")
+  private boolean deduplicateInlineSchemas;
+
+  /**
+   * If set to json or csv, report the size of every generated source, attributed to the component
+   * schema or operation it was generated from, in {@code target/lily/<basePackage>.footprint.json}
+   * (or {@code .csv}).
+   */
+  @Parameter(property = "footprint")
+  private String footprint;
+
+  /**
+   * If true, only re-generate sources for the schemas and operations which changed since the last
+   * compilation. The generated sources are the same either way.
+   */
+  @Parameter(property = "incremental", defaultValue = "false")
+  private boolean incremental;
+
+  /**
+   * If set, rendered sources are cached in this directory by the AST they were rendered from, and
+   * re-used by later builds (and other modules) instead of rendering them again. Point this outside
+   * of the build directory (like ${user.home}/.cache/lily/render) to share it between projects.
+   */
+  @Parameter(property = "renderCacheDir")
+  private String renderCacheDirectory;
+
+  /** The most MiB of sources to keep in the render cache. The least recently used are evicted. */
+  @Parameter(property = "renderCacheSize", defaultValue = "256")
+  private long renderCacheSize;
+
   public void execute() throws MojoExecutionException {
-    try {
-      getLog().info("Compiling OAS to " + outputDirectory);
-      LilyCompiler.compile(URI.create(url).toURL(), Paths.get(outputDirectory), basePackage);
-    } catch (OasParseException | RuntimeException | MalformedURLException e) {
-      throw new MojoExecutionException("Cannot compile OAS document", e);
+    var all = new ArrayList<Spec>();
+    if (url != null || basePackage != null) {
+      if (url == null || basePackage == null) {
+        throw new MojoExecutionException("Both url and basePackage must be set, or neither");
+      }
+      all.add(new Spec(url, basePackage));
+    }
+    for (var spec : specs) {
+      if (spec.getUrl() == null || spec.getBasePackage() == null) {
+        throw new MojoExecutionException("Every spec must set both url and basePackage: " + spec);
+      }
+      all.add(spec);
+    }
+    if (all.isEmpty()) {
+      throw new MojoExecutionException("Configure a url and basePackage, or a list of specs");
+    }
+    if (footprint != null && !footprint.equals("json") && !footprint.equals("csv")) {
+      throw new MojoExecutionException("footprint must be json or csv: " + footprint);
+    }
+    if (all.stream().map(Spec::getBasePackage).distinct().count() != all.size()) {
+      throw new MojoExecutionException("Every spec must have a different basePackage");
+    }
+
+    if (all.size() == 1) {
+      compile(all.get(0));
+    } else {
+      compileAll(all);
     }
 
     project.addCompileSourceRoot(outputDirectory);
   }
+
+  /** Compile each document on a bounded pool of threads, then report every failure at once. */
+  private void compileAll(List<Spec> all) throws MojoExecutionException {
+    var poolSize =
+        Math.min(
+            all.size(), threads == null ? Runtime.getRuntime().availableProcessors() : threads);
+    if (poolSize < 1) {
+      throw new MojoExecutionException("threads must be at least 1");
+    }
+
+    var executor = Executors.newFixedThreadPool(poolSize);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (var spec : all) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  compile(spec);
+                  return null;
+                }));
+      }
+
+      MojoExecutionException failure = null;
+      for (var future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          var cause =
+              e.getCause() instanceof MojoExecutionException mojoException
+                  ? mojoException
+                  : new MojoExecutionException("Cannot compile OAS document", e.getCause());
+          if (failure == null) {
+            failure = cause;
+          } else {
+            failure.addSuppressed(cause);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while compiling OAS documents", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void compile(Spec target) throws MojoExecutionException {
+    var stateFile =
+        Paths.get(project.getBuild().getDirectory(), "lily")
+            .resolve(target.getBasePackage() + ".state");
+    var configuration = configuration(target);
+    var previous =
+        GenerationState.read(stateFile)
+            .filter(state -> state.configuration().equals(configuration));
+
+    try {
+      var uri = URI.create(target.getUrl());
+      var document =
+          switch (String.valueOf(uri.getScheme())) {
+            case "file" -> Optional.of(Paths.get(uri));
+            case "http", "https" ->
+                Optional.of(RemoteOasCache.fetch(uri, Paths.get(specCacheDirectory), offline));
+            default -> Optional.<Path>empty();
+          };
+
+      if (document.isEmpty()) {
+        // We can't cheaply tell whether other kinds of URL have changed, so always compile them.
+        getLog().info("Compiling " + target + " to " + outputDirectory);
+        var result =
+            LilyCompiler.compileWithResult(
+                uri.toURL(), Paths.get(outputDirectory), target.getBasePackage(), options());
+        logResult(result);
+        writeFootprint(target, result);
+      } else {
+        var specHash = GenerationState.sha256(document.get());
+        if (previous.isPresent() && previous.get().isUpToDate(specHash, configuration)) {
+          getLog().info("Generated sources are up to date for " + target);
+        } else {
+          getLog().info("Compiling " + target + " to " + outputDirectory);
+          // Local files are memory-mapped rather than streamed from a URL.
+          var result =
+              LilyCompiler.compileWithResult(
+                  document.get(), Paths.get(outputDirectory), target.getBasePackage(), options());
+          logResult(result);
+          // The report is an output too, so the build is not up to date without it.
+          var files = new ArrayList<>(result.sources().values());
+          writeFootprint(target, result).ifPresent(files::add);
+          new GenerationState(specHash, configuration, files).write(stateFile);
+        }
+      }
+    } catch (OasParseException | RuntimeException | IOException e) {
+      throw new MojoExecutionException("Cannot compile OAS document " + target, e);
+    }
+  }
+
+  private void logResult(CompileResult result) {
+    for (var line : result.summary().split("\n")) {
+      getLog().info(line);
+    }
+  }
+
+  /** Write the footprint report, if requested, and return its path. */
+  private Optional<Path> writeFootprint(Spec target, CompileResult result) throws IOException {
+    if (result.footprint().isEmpty()) {
+      return Optional.empty();
+    }
+    var report =
+        Paths.get(project.getBuild().getDirectory(), "lily")
+            .resolve(target.getBasePackage() + ".footprint." + footprint);
+    Files.createDirectories(report.getParent());
+    Files.writeString(
+        report,
+        footprint.equals("csv")
+            ? result.footprint().get().toCsv()
+            : result.footprint().get().toJson());
+    getLog().info("Wrote footprint report to " + report);
+    return Optional.of(report);
+  }
+
+  private CompilerOptions options() {
+    var options =
+        CompilerOptions.newBuilder()
+            .operationFilter(
+                OperationFilter.newBuilder()
+                    .includeTags(includeTags)
+                    .excludeTags(excludeTags)
+                    .includeOperationIds(includeOperations)
+                    .excludeOperationIds(excludeOperations)
+                    .includePaths(includePaths)
+                    .excludePaths(excludePaths)
+                    .build())
+            .parallelism(parallelism)
+            .specCacheDirectory(Paths.get(specCacheDirectory))
+            .offline(offline)
+            .footprint(footprint != null)
+            .deduplicateInlineSchemas(deduplicateInlineSchemas)
+            .incremental(incremental)
+            .renderCacheSize(renderCacheSize * 1024 * 1024);
+    if (snapshotDirectory != null) {
+      options.snapshotDirectory(Paths.get(snapshotDirectory));
+    }
+    if (renderCacheDirectory != null) {
+      options.renderCacheDirectory(Paths.get(renderCacheDirectory));
+    }
+    return options.build();
+  }
+
+  /**
+   * Describe every setting which affects the generated sources or reports. The Lily build ID
+   * changes whenever the compiler does, even between builds of one snapshot version.
+   */
+  private String configuration(Spec target) {
+    return String.join(
+        "\n",
+        "lily=" + LilyVersion.buildId(),
+        "url=" + target.getUrl(),
+        "outputDir=" + outputDirectory,
+        "basePackage=" + target.getBasePackage(),
+        "includeTags=" + includeTags,
+        "excludeTags=" + excludeTags,
+        "includeOperations=" + includeOperations,
+        "excludeOperations=" + excludeOperations,
+        "includePaths=" + includePaths,
+        "excludePaths=" + excludePaths,
+        "deduplicateInlineSchemas=" + deduplicateInlineSchemas,
+        "footprint=" + footprint);
+  }
 }
@@ -0,0 +1,34 @@
+package io.github.tomboyo.lily;
+
+/**
+ * One OAS document to compile, as configured by a {@code <spec>} element of the plugin's {@code
+ * <specs>} list.
+ */
+public class Spec {
+
+  /** Any URI to an OAS document, be it https:// or file://. */
+  private String url;
+
+  /** The package in which to generate sources for this document. */
+  private String basePackage;
+
+  public Spec() {}
+
+  Spec(String url, String basePackage) {
+    this.url = url;
+    this.basePackage = basePackage;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public String getBasePackage() {
+    return basePackage;
+  }
+
+  @Override
+  public String toString() {
+    return url + " (" + basePackage + ")";
+  }
+}
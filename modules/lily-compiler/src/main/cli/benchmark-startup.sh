@@ -0,0 +1,52 @@
+#!/bin/sh
+# Compares the wall time of compiling a small spec with and without the class data sharing
+# archive. Usage: benchmark-startup.sh [runs] [spec]
+set -e
+
+LILY_HOME=$(cd "$(dirname "$0")" && pwd)
+RUNS=${1:-10}
+SPEC=${2:-$LILY_HOME/training.yaml}
+OUT=$(mktemp -d)
+trap 'rm -rf "$OUT"' EXIT
+
+# Prints the current time in milliseconds. POSIX date has no sub-second format, so this uses
+# nanoseconds where date supports them (GNU, BusyBox) and otherwise perl (macOS, BSD).
+if date +%N | grep -q '^[0-9][0-9]*$'; then
+  now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+  }
+elif command -v perl >/dev/null 2>&1; then
+  now_ms() {
+    perl -MTime::HiRes=time -e 'printf "%d\n", time * 1000'
+  }
+else
+  echo "Timing runs needs either a date which supports %N or perl" >&2
+  exit 1
+fi
+
+# Prints the mean wall time, in milliseconds, of RUNS compilations.
+measure() {
+  total=0
+  i=0
+  while [ "$i" -lt "$RUNS" ]; do
+    start=$(now_ms)
+    "$LILY_HOME/lily" --source "$SPEC" --output-dir "$OUT" --base-package benchmark >/dev/null 2>&1
+    total=$((total + $(now_ms) - start))
+    i=$((i + 1))
+  done
+  echo $((total / RUNS))
+}
+
+if [ ! -f "$LILY_HOME/lily.jsa" ]; then
+  echo "No lily.jsa next to this script; build with: mvn package -P cli" >&2
+  exit 1
+fi
+
+# Warm the page cache so that the first measured run is not penalized.
+"$LILY_HOME/lily" --source "$SPEC" --output-dir "$OUT" --base-package benchmark >/dev/null 2>&1
+
+without=$(LILY_NO_CDS=1 measure)
+with=$(measure)
+echo "Mean of $RUNS runs compiling $SPEC:"
+echo "  without archive: $without ms"
+echo "  with archive:    $with ms"
@@ -0,0 +1,98 @@
+package io.github.tomboyo.lily.compiler;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The sources generated by a compilation, and statistics about how it went.
+ *
+ * @param sources The path of each generated source file, by fully-qualified class name.
+ * @param phaseTimes The time spent in each phase. Rendering and writing are pipelined, so their
+ *     times are summed over every source (and thread); with parallelism, they may exceed the wall
+ *     time of the compilation.
+ * @param heapUsed The heap in use at the end of each phase, in bytes. These are samples, not a
+ *     measure of the compilation alone: other threads share the heap, and garbage collection may
+ *     run at any time.
+ * @param schemas The number of component schemas in the OAS document.
+ * @param operations The number of operations generated.
+ * @param astNodes The number of AST nodes generated, by type (like AstClass).
+ * @param filesWritten The number of source files written.
+ * @param filesSkipped The number of source files not written because they were unchanged.
+ * @param bytesWritten The number of bytes written to source files.
+ * @param footprint Every generated file's size, attributed to the part of the OAS document it was
+ *     generated from, if {@link CompilerOptions#footprint()} is set.
+ * @param unitsReused The number of schemas, operations, and other parts of the document whose
+ *     sources were re-used from the previous compilation, if {@link CompilerOptions#incremental()}
+ *     is set. The AST and file statistics do not count re-used sources.
+ */
+public record CompileResult(
+    Map<String, Path> sources,
+    Map<Phase, Duration> phaseTimes,
+    Map<Phase, Long> heapUsed,
+    int schemas,
+    int operations,
+    Map<String, Long> astNodes,
+    int filesWritten,
+    int filesSkipped,
+    long bytesWritten,
+    Optional<Footprint> footprint,
+    int unitsReused) {
+
+  public enum Phase {
+    /** Reading the OAS document, including downloading it if necessary. */
+    PARSE,
+    /** Evaluating the OAS document to AST. */
+    EVALUATE,
+    /** Rendering AST to source code. */
+    RENDER,
+    /** Writing source code to disc, or comparing it to the existing files. */
+    WRITE,
+    /** Deleting stale sources from previous compilations, and saving state for the next. */
+    CLEANUP
+  }
+
+  /** The total of every phase time. */
+  public Duration totalTime() {
+    return phaseTimes.values().stream().reduce(Duration.ZERO, Duration::plus);
+  }
+
+  /** The most heap in use at the end of any phase, in bytes. */
+  public long peakHeapUsed() {
+    return heapUsed.values().stream().mapToLong(Long::longValue).max().orElse(0);
+  }
+
+  /** Describe the statistics for people, over several lines. */
+  public String summary() {
+    var phases =
+        phaseTimes.entrySet().stream()
+            .map(
+                entry ->
+                    "%s %d ms (heap %d MiB)"
+                        .formatted(
+                            entry.getKey().name().toLowerCase(),
+                            entry.getValue().toMillis(),
+                            heapUsed.getOrDefault(entry.getKey(), 0L) / (1024 * 1024)))
+            .collect(Collectors.joining(", "));
+    var nodes =
+        astNodes.entrySet().stream()
+            .map(entry -> entry.getKey() + "=" + entry.getValue())
+            .collect(Collectors.joining(", "));
+    var files =
+        "Files: %d written (%d bytes), %d unchanged"
+            .formatted(filesWritten, bytesWritten, filesSkipped);
+    if (unitsReused > 0) {
+      files +=
+          ", %d re-used from %d parts of the document"
+              .formatted(sources.size() - filesWritten - filesSkipped, unitsReused);
+    }
+    return String.join(
+        "\n",
+        "Phases: " + phases,
+        "Document: %d schemas, %d operations".formatted(schemas, operations),
+        "AST: " + nodes,
+        files);
+  }
+}
@@ -0,0 +1,146 @@
+package io.github.tomboyo.lily.compiler;
+
+import static java.util.Objects.requireNonNull;
+
+import io.github.tomboyo.lily.compiler.icg.OperationFilter;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Optional settings for {@link LilyCompiler}. The defaults reproduce Lily's standard behavior.
+ *
+ * @param snapshotDirectory If present, the directory in which to cache parsed OAS documents. See
+ *     {@link io.github.tomboyo.lily.compiler.oas.OasReader#fromUrl(java.net.URL, Path)}.
+ * @param operationFilter Selects the operations to generate. Component schemas which are not
+ *     reachable from the selected operations are not generated either.
+ * @param parallelism The number of threads with which to evaluate the OAS document. Generated code
+ *     does not depend on parallelism.
+ * @param specCacheDirectory If present, the directory in which to keep local copies of remote (http
+ *     and https) OAS documents. See {@link io.github.tomboyo.lily.compiler.oas.RemoteOasCache}.
+ * @param offline If true, remote OAS documents are only read from the spec cache directory, and the
+ *     network is never used. Requires a spec cache directory.
+ * @param footprint If true, measure every generated source and attribute it to the schema or
+ *     operation it was generated from. See {@link CompileResult#footprint()}.
+ * @param deduplicateInlineSchemas If true, structurally identical inline object schemas generate
+ *     one shared type instead of one type each. See {@link
+ *     io.github.tomboyo.lily.compiler.icg.InlineSchemaDeduplication}.
+ * @param incremental If true, only evaluate and render the parts of the document which changed
+ *     since the last compilation into the same output directory, and re-use the sources generated
+ *     from the rest. The result is the same as compiling the whole document. Ignored (the whole
+ *     document is compiled) when footprints or inline schema deduplication are enabled.
+ * @param renderCacheDirectory If present, the directory in which to cache rendered sources by the
+ *     AST they were rendered from, so that identical AST is not rendered again. The cache may be
+ *     shared by any number of compilations. See {@link
+ *     io.github.tomboyo.lily.compiler.cg.RenderCache}.
+ * @param renderCacheSize The most bytes of sources to keep in the render cache. The least recently
+ *     used sources are evicted first.
+ */
+public record CompilerOptions(
+    Optional<Path> snapshotDirectory,
+    OperationFilter operationFilter,
+    int parallelism,
+    Optional<Path> specCacheDirectory,
+    boolean offline,
+    boolean footprint,
+    boolean deduplicateInlineSchemas,
+    boolean incremental,
+    Optional<Path> renderCacheDirectory,
+    long renderCacheSize) {
+
+  /** Get the default options. */
+  public static CompilerOptions defaults() {
+    return newBuilder().build();
+  }
+
+  /** Get a builder initialized with the default options unless overridden. */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+    private Optional<Path> snapshotDirectory = Optional.empty();
+    private OperationFilter operationFilter = OperationFilter.all();
+    private int parallelism = 1;
+    private Optional<Path> specCacheDirectory = Optional.empty();
+    private boolean offline = false;
+    private boolean footprint = false;
+    private boolean deduplicateInlineSchemas = false;
+    private boolean incremental = false;
+    private Optional<Path> renderCacheDirectory = Optional.empty();
+    private long renderCacheSize = 256L * 1024 * 1024;
+
+    public Builder snapshotDirectory(Path snapshotDirectory) {
+      this.snapshotDirectory = Optional.ofNullable(snapshotDirectory);
+      return this;
+    }
+
+    public Builder operationFilter(OperationFilter operationFilter) {
+      this.operationFilter = operationFilter;
+      return this;
+    }
+
+    public Builder parallelism(int parallelism) {
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    public Builder specCacheDirectory(Path specCacheDirectory) {
+      this.specCacheDirectory = Optional.ofNullable(specCacheDirectory);
+      return this;
+    }
+
+    public Builder offline(boolean offline) {
+      this.offline = offline;
+      return this;
+    }
+
+    public Builder footprint(boolean footprint) {
+      this.footprint = footprint;
+      return this;
+    }
+
+    public Builder deduplicateInlineSchemas(boolean deduplicateInlineSchemas) {
+      this.deduplicateInlineSchemas = deduplicateInlineSchemas;
+      return this;
+    }
+
+    public Builder incremental(boolean incremental) {
+      this.incremental = incremental;
+      return this;
+    }
+
+    public Builder renderCacheDirectory(Path renderCacheDirectory) {
+      this.renderCacheDirectory = Optional.ofNullable(renderCacheDirectory);
+      return this;
+    }
+
+    public Builder renderCacheSize(long renderCacheSize) {
+      this.renderCacheSize = renderCacheSize;
+      return this;
+    }
+
+    public CompilerOptions build() {
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+      }
+      if (offline && specCacheDirectory.isEmpty()) {
+        throw new IllegalArgumentException("Offline mode requires a spec cache directory");
+      }
+      if (renderCacheSize < 0) {
+        throw new IllegalArgumentException(
+            "Render cache size must not be negative: " + renderCacheSize);
+      }
+      return new CompilerOptions(
+          requireNonNull(snapshotDirectory),
+          requireNonNull(operationFilter),
+          parallelism,
+          requireNonNull(specCacheDirectory),
+          offline,
+          footprint,
+          deduplicateInlineSchemas,
+          incremental,
+          requireNonNull(renderCacheDirectory),
+          renderCacheSize);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package io.github.tomboyo.lily.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.groupingBy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.tomboyo.lily.compiler.cg.Source;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * How much source code a compilation generated, attributed to the parts of the OAS document it was
+ * generated from. Use this to find the schemas and operations which contribute the most code, and
+ * therefore the most javac time and metaspace.
+ *
+ * @param files Every generated source file.
+ */
+public record Footprint(List<GeneratedFile> files) {
+
+  /** Matches type declarations, each of which javac compiles to its own class file. */
+  private static final Pattern TYPE_DECLARATION =
+      Pattern.compile("\\b(?:class|interface|record|enum)\\s+[A-Z][\\w$]*");
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  /**
+   * One generated source file.
+   *
+   * @param origin The part of the document the file was generated from: a component schema's JSON
+   *     pointer (like {@code #/components/schemas/Pet}), an operationId, or {@code (api)} for the
+   *     API root and groups of tagged operations. Inline types, like the Item of an array or the
+   *     Body of a request, are attributed to the schema or operation that contains them.
+   * @param fqn The fully-qualified name of the file's top-level type.
+   * @param path The path of the file relative to the output directory.
+   * @param lines The number of lines in the file.
+   * @param bytes The size of the file in bytes.
+   * @param classes An estimate of the number of class files javac will generate from the file,
+   *     which is the number of (possibly nested) types it declares.
+   */
+  public record GeneratedFile(
+      String origin, String fqn, Path path, int lines, long bytes, int classes) {
+
+    static GeneratedFile of(String origin, Source source) {
+      var contents = source.contents();
+      var lines = (int) contents.chars().filter(c -> c == '\n').count();
+      if (!contents.isEmpty() && !contents.endsWith("\n")) {
+        lines++;
+      }
+      return new GeneratedFile(
+          origin,
+          source.fqn(),
+          source.relativePath(),
+          lines,
+          contents.getBytes(UTF_8).length,
+          (int) TYPE_DECLARATION.matcher(contents).results().count());
+    }
+  }
+
+  /**
+   * The total footprint of every file generated from one part of the document.
+   *
+   * @param origin The part of the document, as in {@link GeneratedFile#origin()}.
+   * @param files The files generated from it, ordered by name.
+   */
+  public record OriginFootprint(String origin, List<GeneratedFile> files) {
+
+    public long lines() {
+      return files.stream().mapToLong(GeneratedFile::lines).sum();
+    }
+
+    public long bytes() {
+      return files.stream().mapToLong(GeneratedFile::bytes).sum();
+    }
+
+    public long classes() {
+      return files.stream().mapToLong(GeneratedFile::classes).sum();
+    }
+  }
+
+  /** Group files by origin, from the origin with the most bytes to the origin with the least. */
+  public List<OriginFootprint> byOrigin() {
+    return files.stream().collect(groupingBy(GeneratedFile::origin)).entrySet().stream()
+        .map(
+            entry ->
+                new OriginFootprint(
+                    entry.getKey(),
+                    entry.getValue().stream()
+                        .sorted(Comparator.comparing(GeneratedFile::fqn))
+                        .toList()))
+        .sorted(
+            Comparator.comparingLong(OriginFootprint::bytes)
+                .reversed()
+                .thenComparing(OriginFootprint::origin))
+        .toList();
+  }
+
+  /**
+   * Render the footprint as JSON: an array of origins, largest first, each with its totals and
+   * files.
+   */
+  public String toJson() {
+    var origins = MAPPER.createArrayNode();
+    for (var origin : byOrigin()) {
+      var node =
+          origins
+              .addObject()
+              .put("origin", origin.origin())
+              .put("files", origin.files().size())
+              .put("lines", origin.lines())
+              .put("bytes", origin.bytes())
+              .put("classes", origin.classes());
+      var files = node.putArray("sources");
+      for (var file : origin.files()) {
+        files
+            .addObject()
+            .put("fqn", file.fqn())
+            .put("path", file.path().toString())
+            .put("lines", file.lines())
+            .put("bytes", file.bytes())
+            .put("classes", file.classes());
+      }
+    }
+    try {
+      return MAPPER.writeValueAsString(origins);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Failed to render footprint as JSON", e);
+    }
+  }
+
+  /** Render the footprint as CSV with a header row and one row per file, grouped like JSON. */
+  public String toCsv() {
+    var csv = new StringBuilder("origin,fqn,path,lines,bytes,classes\n");
+    for (var origin : byOrigin()) {
+      for (var file : origin.files()) {
+        csv.append(csvField(file.origin()))
+            .append(',')
+            .append(csvField(file.fqn()))
+            .append(',')
+            .append(csvField(file.path().toString()))
+            .append(',')
+            .append(file.lines())
+            .append(',')
+            .append(file.bytes())
+            .append(',')
+            .append(file.classes())
+            .append('\n');
+      }
+    }
+    return csv.toString();
+  }
+
+  /** Quote a CSV field if it contains a delimiter, quote, or line break (RFC 4180). */
+  private static String csvField(String value) {
+    if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+      return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    return value;
+  }
+}
@@ -0,0 +1,246 @@
+package io.github.tomboyo.lily.compiler;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toCollection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.tomboyo.lily.compiler.ast.Ast;
+import io.github.tomboyo.lily.compiler.icg.OasDependencyGraph;
+import io.github.tomboyo.lily.compiler.icg.OasDependencyGraph.Unit;
+import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import io.github.tomboyo.lily.compiler.util.Pair;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Re-uses the sources of a previous compilation into the same output directory for every part of
+ * the OAS document which has not changed since. See {@link CompilerOptions#incremental()}.
+ *
+ * <p>The document is divided into the units of {@link OasDependencyGraph}. After each compilation,
+ * every unit's fingerprint, dependencies, and generated sources (with their sizes and modification
+ * times) are saved to {@code .lily/<basePackage>.graph.json} beneath the output directory. The next
+ * compilation only evaluates and renders the units which are new, whose fingerprints changed, or
+ * whose sources were modified or deleted since; the sources of every other unit are already up to
+ * date. The state is discarded if it was saved by a different build of Lily or cannot be read.
+ */
+final class IncrementalCompilation {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalCompilation.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** The persisted record of a compilation. */
+  record State(String lily, String basePackage, Map<String, UnitState> units) {}
+
+  /**
+   * The persisted record of one unit.
+   *
+   * @param fingerprint The unit's {@link Unit#fingerprint()}.
+   * @param dependencies The unit's {@link Unit#dependencies()}.
+   * @param sources Every source generated from the unit.
+   */
+  record UnitState(String fingerprint, SortedSet<String> dependencies, List<SourceState> sources) {}
+
+  /**
+   * The persisted record of one generated source.
+   *
+   * @param fqn The fully-qualified name of the source's top-level type.
+   * @param path The path of the source relative to the output directory.
+   * @param size The size of the source file when it was generated, in bytes.
+   * @param lastModified The modification time of the source file when it was generated, in
+   *     milliseconds since the epoch.
+   */
+  record SourceState(String fqn, String path, long size, long lastModified) {}
+
+  private final Path outputDirectory;
+  private final Path stateFile;
+  private final String basePackage;
+  private final Optional<Map<String, Unit>> units;
+  private final Map<String, UnitState> reused;
+
+  private IncrementalCompilation(
+      Path outputDirectory,
+      String basePackage,
+      Optional<Map<String, Unit>> units,
+      Map<String, UnitState> reused) {
+    this.outputDirectory = outputDirectory;
+    this.stateFile = outputDirectory.resolve(".lily").resolve(basePackage + ".graph.json");
+    this.basePackage = basePackage;
+    this.units = units;
+    this.reused = reused;
+  }
+
+  /**
+   * Decide which units of the document to compile. If the options do not enable incremental
+   * compilation, or enable options which need every unit, or the document can not be divided into
+   * units, then every unit is compiled.
+   */
+  static IncrementalCompilation plan(
+      Path outputDirectory, String basePackage, OpenApi openApi, CompilerOptions options) {
+    if (!options.incremental()) {
+      return new IncrementalCompilation(outputDirectory, basePackage, Optional.empty(), Map.of());
+    }
+    if (options.deduplicateInlineSchemas() || options.footprint()) {
+      LOGGER.info(
+          "Inline schema deduplication and footprints need the whole document; compiling all of"
+              + " it");
+      return new IncrementalCompilation(outputDirectory, basePackage, Optional.empty(), Map.of());
+    }
+
+    var units = OasDependencyGraph.evaluate(openApi, options.operationFilter());
+    if (units.isEmpty()) {
+      LOGGER.info("Some operations have no operationId; compiling the whole document");
+      return new IncrementalCompilation(outputDirectory, basePackage, Optional.empty(), Map.of());
+    }
+
+    var compilation = new IncrementalCompilation(outputDirectory, basePackage, units, Map.of());
+    var previous = compilation.readState();
+    var reused = new HashMap<String, UnitState>();
+    units
+        .get()
+        .forEach(
+            (origin, unit) -> {
+              var state = previous.get(origin);
+              if (state != null
+                  && state.fingerprint().equals(unit.fingerprint())
+                  && state.sources().stream().allMatch(compilation::isUnchanged)) {
+                reused.put(origin, state);
+              }
+            });
+    LOGGER.debug("Re-using the sources of {} of {} units", reused.size(), units.get().size());
+    return new IncrementalCompilation(outputDirectory, basePackage, units, reused);
+  }
+
+  /** Test whether AST from the given origin must be evaluated and rendered. */
+  Predicate<String> origins() {
+    return origin -> !reused.containsKey(origin);
+  }
+
+  /** The number of units whose sources were re-used rather than compiled again. */
+  int unitsReused() {
+    return reused.size();
+  }
+
+  /**
+   * Add the sources of every re-used unit to the given sources, which were compiled from every
+   * other unit.
+   *
+   * @throws IllegalStateException If a compiled source has the same name as a re-used one.
+   */
+  Map<String, Path> withReusedSources(Map<String, Path> compiled) {
+    var sources = new HashMap<>(compiled);
+    for (var unit : reused.values()) {
+      for (var source : unit.sources()) {
+        if (sources.putIfAbsent(source.fqn(), outputDirectory.resolve(source.path())) != null) {
+          throw new IllegalStateException(
+              "Duplicate key " + source.fqn() + " (generated from more than one origin)");
+        }
+      }
+    }
+    return sources;
+  }
+
+  /**
+   * Save the state of this compilation for the next one, or delete any saved state if this
+   * compilation is not incremental.
+   *
+   * @param ast The evaluated AST and the origin of each.
+   * @param sources The path of every source, by fully-qualified name, including re-used ones.
+   */
+  void save(List<Pair<String, Ast>> ast, Map<String, Path> sources) {
+    try {
+      if (units.isEmpty()) {
+        Files.deleteIfExists(stateFile);
+        return;
+      }
+
+      var compiledFqns =
+          ast.stream()
+              .collect(
+                  groupingBy(
+                      Pair::left,
+                      mapping(
+                          pair -> pair.right().name().toFqString(), toCollection(TreeSet::new))));
+      var states = new LinkedHashMap<String, UnitState>();
+      for (var unit : units.get().values()) {
+        var state = reused.get(unit.origin());
+        if (state == null) {
+          var compiled = new ArrayList<SourceState>();
+          for (var fqn : compiledFqns.getOrDefault(unit.origin(), new TreeSet<>())) {
+            compiled.add(sourceState(fqn, sources.get(fqn)));
+          }
+          state = new UnitState(unit.fingerprint(), unit.dependencies(), compiled);
+        }
+        states.put(unit.origin(), state);
+      }
+
+      Files.createDirectories(stateFile.getParent());
+      var tmp =
+          Files.createTempFile(stateFile.getParent(), stateFile.getFileName().toString(), ".tmp");
+      MAPPER.writeValue(tmp.toFile(), new State(LilyVersion.buildId(), basePackage, states));
+      Files.move(tmp, stateFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to save compilation state to " + stateFile, e);
+    }
+  }
+
+  private SourceState sourceState(String fqn, Path path) throws IOException {
+    var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    return new SourceState(
+        fqn,
+        outputDirectory.relativize(path).toString(),
+        attributes.size(),
+        attributes.lastModifiedTime().toMillis());
+  }
+
+  /** Test whether the source is as it was when it was generated. */
+  private boolean isUnchanged(SourceState source) {
+    try {
+      var attributes =
+          Files.readAttributes(outputDirectory.resolve(source.path()), BasicFileAttributes.class);
+      return attributes.isRegularFile()
+          && attributes.size() == source.size()
+          && attributes.lastModifiedTime().toMillis() == source.lastModified();
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /** Read the state of the previous compilation, or nothing if it can not be trusted. */
+  private Map<String, UnitState> readState() {
+    if (!Files.isRegularFile(stateFile)) {
+      return Map.of();
+    }
+    try {
+      var state = MAPPER.readValue(stateFile.toFile(), State.class);
+      if (!LilyVersion.buildId().equals(state.lily())) {
+        LOGGER.info("{} was saved by another build of Lily; compiling everything", stateFile);
+        return Map.of();
+      }
+      if (!basePackage.equals(state.basePackage()) || state.units() == null) {
+        return Map.of();
+      }
+      return state.units();
+    } catch (IOException e) {
+      LOGGER.warn("Could not read {}; compiling everything", stateFile, e);
+      return Map.of();
+    }
+  }
+}
@@ -1,26 +1,62 @@
 package io.github.tomboyo.lily.compiler;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import static java.nio.file.StandardOpenOption.WRITE;
 
+import io.github.tomboyo.lily.compiler.CompileResult.Phase;
+import io.github.tomboyo.lily.compiler.ast.Ast;
+import io.github.tomboyo.lily.compiler.ast.AstOperation;
 import io.github.tomboyo.lily.compiler.ast.PackageName;
 import io.github.tomboyo.lily.compiler.cg.CodeGen;
+import io.github.tomboyo.lily.compiler.cg.RenderCache;
 import io.github.tomboyo.lily.compiler.cg.Source;
 import io.github.tomboyo.lily.compiler.icg.AstGenerator;
+import io.github.tomboyo.lily.compiler.icg.InlineSchemaDeduplication;
 import io.github.tomboyo.lily.compiler.oas.OasReader;
+import io.github.tomboyo.lily.compiler.oas.RemoteOasCache;
 import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
 import io.github.tomboyo.lily.compiler.util.Pair;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class LilyCompiler {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(LilyCompiler.class);
+
   /**
    * Generate java source code from an OpenAPI V3 YAML specification file.
    *
@@ -32,8 +68,103 @@ public class LilyCompiler {
    */
   public static Map<String, Path> compile(URL url, Path outputDir, String basePackage)
       throws OasParseException {
-    var openAPI = OasReader.fromUrl(url);
-    return compile(openAPI, outputDir, basePackage);
+    return compile(url, outputDir, basePackage, CompilerOptions.defaults());
+  }
+
+  /**
+   * Generate java source code from an OpenAPI V3 YAML specification file.
+   *
+   * <p>If the options set a spec cache directory, http and https documents are fetched through the
+   * {@link RemoteOasCache} and compiled from the local copy.
+   *
+   * @param url The URI of the OpenAPI YAML specification to compile.
+   * @param outputDir The parent directory to save java generated source code files.
+   * @param basePackage The name of the base package for all generated java source files.
+   * @param options Additional compiler settings.
+   * @return The set of Path objects for each generated file.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static Map<String, Path> compile(
+      URL url, Path outputDir, String basePackage, CompilerOptions options)
+      throws OasParseException {
+    return compileWithResult(url, outputDir, basePackage, options).sources();
+  }
+
+  /**
+   * Like {@link #compile(URL, Path, String, CompilerOptions)}, but also return statistics about the
+   * compilation.
+   */
+  public static CompileResult compileWithResult(
+      URL url, Path outputDir, String basePackage, CompilerOptions options)
+      throws OasParseException {
+    var start = System.nanoTime();
+    if (options.specCacheDirectory().isPresent()
+        && (url.getProtocol().equals("http") || url.getProtocol().equals("https"))) {
+      URI uri;
+      try {
+        uri = url.toURI();
+      } catch (URISyntaxException e) {
+        throw new OasParseException("Invalid URL " + url, e);
+      }
+      var copy = RemoteOasCache.fetch(uri, options.specCacheDirectory().get(), options.offline());
+      return compile(readPath(copy, options), outputDir, basePackage, options, start);
+    }
+
+    var openAPI =
+        options.snapshotDirectory().isPresent()
+            ? OasReader.fromUrl(url, options.snapshotDirectory().get())
+            : OasReader.fromUrl(url);
+    return compile(openAPI, outputDir, basePackage, options, start);
+  }
+
+  /**
+   * Generate java source code from a local OpenAPI V3 YAML or JSON specification file.
+   *
+   * @param spec The path to the OpenAPI specification to compile.
+   * @param outputDir The parent directory to save java generated source code files.
+   * @param basePackage The name of the base package for all generated java source files.
+   * @return The set of Path objects for each generated file.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static Map<String, Path> compile(Path spec, Path outputDir, String basePackage)
+      throws OasParseException {
+    return compile(spec, outputDir, basePackage, CompilerOptions.defaults());
+  }
+
+  /**
+   * Generate java source code from a local OpenAPI V3 YAML or JSON specification file.
+   *
+   * <p>Prefer this to {@link #compile(URL, Path, String)} for local files, since the file is
+   * memory-mapped rather than read into the heap.
+   *
+   * @param spec The path to the OpenAPI specification to compile.
+   * @param outputDir The parent directory to save java generated source code files.
+   * @param basePackage The name of the base package for all generated java source files.
+   * @param options Additional compiler settings.
+   * @return The set of Path objects for each generated file.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static Map<String, Path> compile(
+      Path spec, Path outputDir, String basePackage, CompilerOptions options)
+      throws OasParseException {
+    return compileWithResult(spec, outputDir, basePackage, options).sources();
+  }
+
+  /**
+   * Like {@link #compile(Path, Path, String, CompilerOptions)}, but also return statistics about
+   * the compilation.
+   */
+  public static CompileResult compileWithResult(
+      Path spec, Path outputDir, String basePackage, CompilerOptions options)
+      throws OasParseException {
+    var start = System.nanoTime();
+    return compile(readPath(spec, options), outputDir, basePackage, options, start);
+  }
+
+  private static OpenApi readPath(Path spec, CompilerOptions options) throws OasParseException {
+    return options.snapshotDirectory().isPresent()
+        ? OasReader.fromPath(spec, options.snapshotDirectory().get())
+        : OasReader.fromPath(spec);
   }
 
   /**
@@ -47,25 +178,292 @@ public class LilyCompiler {
    */
   public static Map<String, Path> compile(String oasContent, Path outputDir, String basePackage)
       throws OasParseException {
+    return compile(oasContent, outputDir, basePackage, CompilerOptions.defaults());
+  }
+
+  /**
+   * Generate java source code form an OpenAPI V3 YAML specification string.
+   *
+   * @param oasContent A string representing an OpenAPI V3 YAML specification.
+   * @param outputDir The parent directory to save java generated source code files.
+   * @param basePackage The name of the base package for all generated java source files.
+   * @param options Additional compiler settings. The snapshot directory is not used.
+   * @return The set of Path objects for each generated file.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static Map<String, Path> compile(
+      String oasContent, Path outputDir, String basePackage, CompilerOptions options)
+      throws OasParseException {
+    return compileWithResult(oasContent, outputDir, basePackage, options).sources();
+  }
+
+  /**
+   * Like {@link #compile(String, Path, String, CompilerOptions)}, but also return statistics about
+   * the compilation.
+   */
+  public static CompileResult compileWithResult(
+      String oasContent, Path outputDir, String basePackage, CompilerOptions options)
+      throws OasParseException {
+    var start = System.nanoTime();
     var openAPI = OasReader.fromString(oasContent);
-    return compile(openAPI, outputDir, basePackage);
+    return compile(openAPI, outputDir, basePackage, options, start);
   }
 
-  private static Map<String, Path> compile(OpenApi openApi, Path outputDir, String basePackage) {
-    return AstGenerator.evaluate(PackageName.of(basePackage), openApi)
-        .map(CodeGen::renderAst)
-        .map(source -> new Pair<>(source.fqn(), persistSource(outputDir, source)))
-        .collect(Collectors.toMap(Pair::left, Pair::right));
+  /**
+   * Compile a parsed document.
+   *
+   * @param start When parsing began, according to {@link System#nanoTime()}.
+   */
+  private static CompileResult compile(
+      OpenApi openApi, Path outputDir, String basePackage, CompilerOptions options, long start) {
+    var phaseTimes = new EnumMap<Phase, Duration>(Phase.class);
+    var heapUsed = new EnumMap<Phase, Long>(Phase.class);
+    var mark = System.nanoTime();
+    recordPhase(phaseTimes, heapUsed, Phase.PARSE, mark - start);
+
+    var incremental = IncrementalCompilation.plan(outputDir, basePackage, openApi, options);
+    var ast =
+        AstGenerator.evaluateWithOrigins(
+                PackageName.of(basePackage),
+                openApi,
+                options.operationFilter(),
+                options.parallelism(),
+                incremental.origins())
+            .toList();
+    if (options.deduplicateInlineSchemas()) {
+      ast = InlineSchemaDeduplication.deduplicate(PackageName.of(basePackage), ast);
+    }
+    var now = System.nanoTime();
+    recordPhase(phaseTimes, heapUsed, Phase.EVALUATE, now - mark);
+
+    var counters = new Counters(options.footprint());
+    Function<Ast, Source> renderer =
+        options
+            .renderCacheDirectory()
+            .map(directory -> RenderCache.open(directory, options.renderCacheSize()))
+            .<Function<Ast, Source>>map(cache -> cache::render)
+            .orElse(CodeGen::renderAst);
+    var sources =
+        incremental.withReusedSources(
+            persistSources(ast.stream(), outputDir, options.parallelism(), renderer, counters));
+    recordPhase(phaseTimes, heapUsed, Phase.RENDER, counters.renderNanos.sum());
+    recordPhase(phaseTimes, heapUsed, Phase.WRITE, counters.writeNanos.sum());
+
+    mark = System.nanoTime();
+    removeStaleSources(outputDir, basePackage, sources.values());
+    incremental.save(ast, sources);
+    recordPhase(phaseTimes, heapUsed, Phase.CLEANUP, System.nanoTime() - mark);
+
+    var astNodes =
+        ast.stream()
+            .collect(
+                Collectors.groupingBy(
+                    node -> node.right().getClass().getSimpleName(),
+                    TreeMap::new,
+                    Collectors.counting()));
+    return new CompileResult(
+        sources,
+        Collections.unmodifiableMap(phaseTimes),
+        Collections.unmodifiableMap(heapUsed),
+        openApi.components().map(components -> components.schemas().size()).orElse(0),
+        astNodes.getOrDefault(AstOperation.class.getSimpleName(), 0L).intValue(),
+        Collections.unmodifiableMap(astNodes),
+        counters.written.intValue(),
+        counters.skipped.intValue(),
+        counters.bytesWritten.sum(),
+        counters.footprint.map(
+            files ->
+                new Footprint(
+                    files.stream()
+                        .sorted(Comparator.comparing(Footprint.GeneratedFile::fqn))
+                        .toList())),
+        incremental.unitsReused());
+  }
+
+  private static void recordPhase(
+      Map<Phase, Duration> phaseTimes, Map<Phase, Long> heapUsed, Phase phase, long nanos) {
+    var runtime = Runtime.getRuntime();
+    phaseTimes.put(phase, Duration.ofNanos(nanos));
+    heapUsed.put(phase, runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  /** Statistics gathered while rendering and writing sources, possibly on many threads. */
+  private static final class Counters {
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final Optional<Queue<Footprint.GeneratedFile>> footprint;
+
+    private Counters(boolean footprint) {
+      this.footprint = footprint ? Optional.of(new ConcurrentLinkedQueue<>()) : Optional.empty();
+    }
   }
 
-  private static Path persistSource(Path outputDirectory, Source rendering) {
+  private static Source render(
+      Pair<String, Ast> originAndAst, Function<Ast, Source> renderer, Counters counters) {
+    var start = System.nanoTime();
+    var source = renderer.apply(originAndAst.right());
+    counters.renderNanos.add(System.nanoTime() - start);
+    counters.footprint.ifPresent(
+        files -> files.add(Footprint.GeneratedFile.of(originAndAst.left(), source)));
+    return source;
+  }
+
+  private static Map<String, Path> persistSources(
+      Stream<Pair<String, Ast>> ast,
+      Path outputDir,
+      int parallelism,
+      Function<Ast, Source> renderer,
+      Counters counters) {
+    if (parallelism == 1) {
+      var directories = new HashMap<Path, Boolean>();
+      return ast.map(node -> render(node, renderer, counters))
+          .map(
+              source ->
+                  new Pair<>(source.fqn(), persistSource(outputDir, directories, source, counters)))
+          .collect(Collectors.toMap(Pair::left, Pair::right));
+    }
+
+    /*
+     Render on every core and hand each rendering off to a bounded pool of writers. When the
+     writers fall behind, the renderer writes its own source instead of queueing it, so renderings
+     do not pile up in memory.
+    */
+    var directories = new ConcurrentHashMap<Path, Boolean>();
+    try (var renderers = new ForkJoinPool(parallelism);
+        var writers =
+            new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4),
+                new ThreadPoolExecutor.CallerRunsPolicy())) {
+      var pendingWrites =
+          renderers
+              .submit(
+                  () ->
+                      ast.parallel()
+                          .map(node -> render(node, renderer, counters))
+                          .map(
+                              source ->
+                                  new Pair<>(
+                                      source.fqn(),
+                                      CompletableFuture.supplyAsync(
+                                          () ->
+                                              persistSource(
+                                                  outputDir, directories, source, counters),
+                                          writers)))
+                          .toList())
+              .join();
+      return pendingWrites.stream()
+          .collect(Collectors.toMap(Pair::left, pair -> pair.right().join()));
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Write a rendered source beneath the output directory, unless the file already has the same
+   * contents. Skipping the write preserves the file's mtime, so build tools do not recompile it.
+   * Each package directory is created at most once per compilation, as recorded by the given map.
+   */
+  private static Path persistSource(
+      Path outputDirectory, Map<Path, Boolean> directories, Source rendering, Counters counters) {
+    var start = System.nanoTime();
     var destination = outputDirectory.resolve(rendering.relativePath());
+    var contents = rendering.contents().getBytes(UTF_8);
     try {
-      Files.createDirectories(destination.getParent());
-      return Files.writeString(destination, rendering.contents(), CREATE, WRITE, TRUNCATE_EXISTING);
+      if (hasContents(destination, contents)) {
+        counters.skipped.increment();
+        return destination;
+      }
+      directories.computeIfAbsent(destination.getParent(), LilyCompiler::createDirectories);
+      Files.write(destination, contents, CREATE, WRITE, TRUNCATE_EXISTING);
+      counters.written.increment();
+      counters.bytesWritten.add(contents.length);
+      return destination;
     } catch (IOException e) {
       throw new UncheckedIOException(
           "Failed to write source file to path '" + destination + "'", e);
+    } finally {
+      counters.writeNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  private static boolean hasContents(Path file, byte[] contents) throws IOException {
+    return Files.isRegularFile(file)
+        && Files.size(file) == contents.length
+        && Arrays.equals(Files.readAllBytes(file), contents);
+  }
+
+  /**
+   * Delete sources generated for the base package by the previous compilation which were not
+   * generated by this one, then record the current sources for the next compilation. Sources are
+   * recorded per base package, so compilations which share an output directory do not interfere
+   * with one another.
+   */
+  private static void removeStaleSources(
+      Path outputDirectory, String basePackage, Collection<Path> sources) {
+    var manifest = outputDirectory.resolve(".lily").resolve(basePackage + ".sources");
+    var current =
+        sources.stream()
+            .map(outputDirectory::relativize)
+            .map(Path::toString)
+            .sorted()
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    try {
+      if (Files.isRegularFile(manifest)) {
+        for (var previous : Files.readAllLines(manifest, UTF_8)) {
+          var stale = outputDirectory.resolve(previous).normalize();
+          if (!current.contains(previous) && stale.startsWith(outputDirectory.normalize())) {
+            deleteStaleSource(outputDirectory.normalize(), stale);
+          }
+        }
+      }
+      Files.createDirectories(manifest.getParent());
+      Files.write(manifest, current, UTF_8, CREATE, WRITE, TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to remove stale sources from " + outputDirectory, e);
+    }
+  }
+
+  /** Delete the file and any directories beneath the output directory which it leaves empty. */
+  private static void deleteStaleSource(Path outputDirectory, Path file) throws IOException {
+    LOGGER.debug("Deleting stale source {}", file);
+    Files.deleteIfExists(file);
+    for (var dir = file.getParent();
+        dir != null && !dir.equals(outputDirectory) && dir.startsWith(outputDirectory);
+        dir = dir.getParent()) {
+      if (!Files.isDirectory(dir)) {
+        // Someone else already deleted it, so try its parent.
+        continue;
+      }
+      try (var entries = Files.list(dir)) {
+        if (entries.findAny().isPresent()) {
+          return;
+        }
+      }
+      try {
+        Files.delete(dir);
+      } catch (DirectoryNotEmptyException e) {
+        // Another compilation sharing the output directory wrote to it in the meantime.
+        return;
+      }
+    }
+  }
+
+  private static Boolean createDirectories(Path directory) {
+    try {
+      Files.createDirectories(directory);
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create directory '" + directory + "'", e);
     }
   }
 }
@@ -0,0 +1,123 @@
+package io.github.tomboyo.lily.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.github.tomboyo.lily.compiler.util.StructuralDigest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Identifies the build of Lily which is running, so that state persisted by one build (like the
+ * record of an incremental compilation) is not trusted by another which might generate different
+ * code from the same document.
+ */
+public class LilyVersion {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LilyVersion.class);
+
+  private static final String RESOURCE = "lily.properties";
+
+  private static final String VERSION;
+
+  static {
+    var properties = new Properties();
+    try (var in = LilyVersion.class.getResourceAsStream(RESOURCE)) {
+      if (in == null) {
+        LOGGER.warn("{} is missing; the Lily version is unknown", RESOURCE);
+      } else {
+        properties.load(in);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not read {}; the Lily version is unknown", RESOURCE, e);
+    }
+
+    var version = properties.getProperty("version", "unknown");
+    VERSION = version.startsWith("${") ? "unknown" : version;
+  }
+
+  /** Computes the build ID on first use, since hashing the compiler is not free. */
+  private static class BuildId {
+    private static final String BUILD_ID = buildId(VERSION, codeSource());
+  }
+
+  private LilyVersion() {}
+
+  /** The version of Lily, like 0.1.0, or "unknown" if it can not be determined. */
+  public static String version() {
+    return VERSION;
+  }
+
+  /**
+   * An identifier for this build of Lily. It is the version for releases. For snapshots, it also
+   * includes a hash of the compiler's classes and resources, so that it changes whenever the code
+   * does, even if the snapshot is rebuilt without a clean.
+   */
+  public static String buildId() {
+    return BuildId.BUILD_ID;
+  }
+
+  static String buildId(String version, Optional<Path> codeSource) {
+    // Releases are never rebuilt, but snapshots (and unknown versions) are rebuilt without
+    // changing version.
+    if (!version.endsWith("SNAPSHOT") && !version.equals("unknown")) {
+      return version;
+    }
+    if (codeSource.isEmpty()) {
+      LOGGER.warn("Could not locate the Lily compiler; persisted state will not be re-used");
+      return version + "+" + System.nanoTime();
+    }
+    return version + "+" + hash(codeSource.get());
+  }
+
+  /** Hash a jar, or every file in a directory of classes by relative path and contents. */
+  static String hash(Path codeSource) {
+    var digest = StructuralDigest.sha256();
+    try {
+      if (Files.isDirectory(codeSource)) {
+        try (var files = Files.walk(codeSource)) {
+          for (var file : files.filter(Files::isRegularFile).sorted().toList()) {
+            digest.update(codeSource.relativize(file).toString().getBytes(UTF_8));
+            digest.update((byte) 0);
+            update(digest, Files.newInputStream(file));
+          }
+        }
+      } else {
+        update(digest, Files.newInputStream(codeSource));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to hash " + codeSource, e);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, InputStream in) throws IOException {
+    try (in) {
+      var buffer = new byte[8192];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        digest.update(buffer, 0, read);
+      }
+    }
+  }
+
+  private static Optional<Path> codeSource() {
+    try {
+      var source = LilyVersion.class.getProtectionDomain().getCodeSource();
+      if (source == null || !"file".equals(source.getLocation().getProtocol())) {
+        return Optional.empty();
+      }
+      return Optional.of(Path.of(source.getLocation().toURI()));
+    } catch (URISyntaxException | SecurityException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -1,6 +1,6 @@
 package io.github.tomboyo.lily.compiler.ast;
 
-import java.util.Set;
+import java.util.List;
 
 /** The top-level collection of tagged API operations. */
-public record AstApi(Fqn name, Set<AstTaggedOperations> taggedOperations) implements Ast {}
+public record AstApi(Fqn name, List<AstTaggedOperations> taggedOperations) implements Ast {}
@@ -1,6 +1,10 @@
 package io.github.tomboyo.lily.compiler.ast;
 
-import java.util.Set;
+import java.util.List;
 
-/** A collection of tagged operations, where all operations share the same tag. */
-public record AstTaggedOperations(Fqn name, Set<AstOperation> operations) implements Ast {}
+/**
+ * A collection of tagged operations, where all operations share the same tag.
+ *
+ * <p>Operations are listed in the order they appear in the OAS document, each once.
+ */
+public record AstTaggedOperations(Fqn name, List<AstOperation> operations) implements Ast {}
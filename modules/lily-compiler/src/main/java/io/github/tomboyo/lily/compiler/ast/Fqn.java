@@ -2,16 +2,64 @@ package io.github.tomboyo.lily.compiler.ast;
 
 import static java.util.Objects.requireNonNull;
 
+import io.github.tomboyo.lily.compiler.util.ReferenceMap;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * A fully-qualified name of a type consisting of its package name, type name, and type parameters,
  * such as {@code java.lang.String} or {@code java.util.List<java.lang.String>}.
+ *
+ * <p>Fqns are interned like their {@link PackageName}s and {@link SimpleName}s, so equality is an
+ * identity check and each rendering is computed at most once per Fqn.
  */
-public record Fqn(PackageName packageName, SimpleName typeName, List<Fqn> typeParameters) {
+public final class Fqn {
+
+  /**
+   * Interned Fqns by their components, which makes equal Fqns the same instance. Fqns no longer in
+   * use are collected, so long-lived processes do not keep every name they ever compiled.
+   */
+  private static final ReferenceMap<Key, Fqn> POOL = ReferenceMap.weakValues();
+
+  private record Key(PackageName packageName, SimpleName typeName, List<Fqn> typeParameters) {}
+
+  private final PackageName packageName;
+  private final SimpleName typeName;
+  private final List<Fqn> typeParameters;
+  private final int hashCode;
+
+  // Renderings are cached on first use. Races only compute the same immutable value twice.
+  private String fqString;
+  private String fqpString;
+  private Path path;
+
+  private Fqn(Key key) {
+    this.packageName = key.packageName;
+    this.typeName = key.typeName;
+    this.typeParameters = key.typeParameters;
+    this.hashCode = Objects.hash(packageName, typeName, typeParameters);
+  }
+
+  private static Fqn intern(
+      PackageName packageName, SimpleName typeName, List<Fqn> typeParameters) {
+    return POOL.computeIfAbsent(
+        new Key(packageName, typeName, List.copyOf(typeParameters)), Fqn::new);
+  }
+
+  public PackageName packageName() {
+    return packageName;
+  }
+
+  public SimpleName typeName() {
+    return typeName;
+  }
+
+  public List<Fqn> typeParameters() {
+    return typeParameters;
+  }
 
   /**
    * Get a Fqn builder initialized to create Fqns in the {@code java.lang} package with no type
@@ -38,6 +86,17 @@ public record Fqn(PackageName packageName, SimpleName typeName, List<Fqn> typePa
     return new Builder().packageName(packageName).typeName(typeName);
   }
 
+  /** Interned Fqns are equal only if they are the same instance. */
+  @Override
+  public boolean equals(Object o) {
+    return this == o;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   /** Equivalent to {@link #toFqString()}. */
   @Override
   public String toString() {
@@ -49,7 +108,12 @@ public record Fqn(PackageName packageName, SimpleName typeName, List<Fqn> typePa
    * {@code "java.util.List"}
    */
   public String toFqString() {
-    return String.join(".", packageName.toString(), typeName().upperCamelCase());
+    var rendered = fqString;
+    if (rendered == null) {
+      rendered = String.join(".", packageName.toString(), typeName.upperCamelCase());
+      fqString = rendered;
+    }
+    return rendered;
   }
 
   /**
@@ -57,14 +121,22 @@ public record Fqn(PackageName packageName, SimpleName typeName, List<Fqn> typePa
    * java.util.List<java.util.String>}.
    */
   public String toFqpString() {
-    if (typeParameters().isEmpty()) {
+    if (typeParameters.isEmpty()) {
       return toFqString();
-    } else {
-      return toFqString()
-          + "<%s>"
-              .formatted(
-                  typeParameters.stream().map(Fqn::toFqpString).collect(Collectors.joining(", ")));
     }
+
+    var rendered = fqpString;
+    if (rendered == null) {
+      rendered =
+          toFqString()
+              + "<%s>"
+                  .formatted(
+                      typeParameters.stream()
+                          .map(Fqn::toFqpString)
+                          .collect(Collectors.joining(", ")));
+      fqpString = rendered;
+    }
+    return rendered;
   }
 
   /**
@@ -72,9 +144,15 @@ public record Fqn(PackageName packageName, SimpleName typeName, List<Fqn> typePa
    * java.lang.String} maps to a file at {@code ./java/lang/String.java}.
    */
   public Path toPath() {
-    return Path.of(".", packageName.components())
-        .normalize()
-        .resolve(typeName().upperCamelCase() + ".java");
+    var rendered = path;
+    if (rendered == null) {
+      rendered =
+          Path.of(".", packageName.components())
+              .normalize()
+              .resolve(typeName.upperCamelCase() + ".java");
+      path = rendered;
+    }
+    return rendered;
   }
 
   /**
@@ -129,7 +207,7 @@ public record Fqn(PackageName packageName, SimpleName typeName, List<Fqn> typePa
     }
 
     public Fqn build() {
-      return new Fqn(
+      return intern(
           requireNonNull(packageName), requireNonNull(typeName), requireNonNull(typeParameters));
     }
   }
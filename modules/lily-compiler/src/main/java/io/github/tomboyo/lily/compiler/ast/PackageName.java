@@ -2,22 +2,63 @@ package io.github.tomboyo.lily.compiler.ast;
 
 import static java.util.Objects.requireNonNull;
 
+import io.github.tomboyo.lily.compiler.util.ReferenceMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-/** A package name without a qualified class, like com.example.foo.bar.baz */
-public record PackageName(List<String> packageParts) {
+/**
+ * A package name without a qualified class, like com.example.foo.bar.baz
+ *
+ * <p>Package names are interned like {@link SimpleName}s, so equality is an identity check and the
+ * rendered name is computed once.
+ */
+public final class PackageName {
+
+  /** Interned packages by their raw, unsplit form. */
+  private static final ReferenceMap<String, PackageName> BY_RAW_NAME = ReferenceMap.weakValues();
+
+  /** Split raw strings, which {@link #resolve(String)} appends without validating. */
+  private static final ReferenceMap<String, List<String>> PARTS_BY_RAW_NAME =
+      ReferenceMap.softValues();
+
+  /** Interned packages by their parts, which makes equal packages the same instance. */
+  private static final ReferenceMap<List<String>, PackageName> BY_PARTS = ReferenceMap.weakValues();
+
+  private final List<String> packageParts;
+  private final String name;
+  private final int hashCode;
+
+  private PackageName(List<String> packageParts) {
+    this.packageParts = packageParts;
+    this.name = joinPackages(packageParts);
+    this.hashCode = packageParts.hashCode();
+  }
 
   public static PackageName of(String packageName) {
     requireNonNull(packageName);
+
+    var interned = BY_RAW_NAME.get(packageName);
+    if (interned != null) {
+      return interned;
+    }
+
     if (packageName.isBlank()) {
       throw new IllegalArgumentException("Package name must not be blank");
     }
 
-    return new PackageName(toPackageParts(packageName));
+    return BY_RAW_NAME.computeIfAbsent(packageName, raw -> intern(toPackageParts(raw)));
+  }
+
+  private static PackageName intern(List<String> packageParts) {
+    return BY_PARTS.computeIfAbsent(List.copyOf(packageParts), PackageName::new);
+  }
+
+  /** The lower-case components of this package, such that a.b.c becomes [a, b, c]. */
+  public List<String> packageParts() {
+    return packageParts;
   }
 
   /**
@@ -27,8 +68,9 @@ public record PackageName(List<String> packageParts) {
    */
   public PackageName resolve(String packageName) {
     var copy = new ArrayList<>(packageParts);
-    copy.addAll(toPackageParts(packageName));
-    return new PackageName(copy);
+    copy.addAll(
+        PARTS_BY_RAW_NAME.computeIfAbsent(packageName, raw -> List.copyOf(toPackageParts(raw))));
+    return intern(copy);
   }
 
   /**
@@ -46,9 +88,20 @@ public record PackageName(List<String> packageParts) {
     return packageParts.toArray(new String[0]);
   }
 
+  /** Interned packages are equal only if they are the same instance. */
+  @Override
+  public boolean equals(Object o) {
+    return this == o;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
-    return joinPackages(packageParts);
+    return name;
   }
 
   private static List<String> toPackageParts(String first) {
@@ -71,7 +124,7 @@ public record PackageName(List<String> packageParts) {
     return in;
   }
 
-  private String joinPackages(List<String> packageNameParts) {
+  private static String joinPackages(List<String> packageNameParts) {
     return String.join(".", packageNameParts);
   }
 }
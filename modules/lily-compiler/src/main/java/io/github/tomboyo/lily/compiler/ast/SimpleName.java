@@ -2,6 +2,7 @@ package io.github.tomboyo.lily.compiler.ast;
 
 import static java.util.Objects.requireNonNull;
 
+import io.github.tomboyo.lily.compiler.util.ReferenceMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,12 +17,43 @@ import java.util.stream.Stream;
  * <p>A simple name may be constructed from raw strings in camelCase (and PascalCase), kebab-case,
  * and snake_case. When formatted to a string using {@link #lowerCamelCase()} or {@link
  * #upperCamelCase()}, word boundaries from the raw input are respected.
+ *
+ * <p>Simple names are interned: equal names are the same instance, so equality is an identity
+ * check. Raw strings are only split the first time they are seen, and each rendering is computed at
+ * most once per name.
  */
-public record SimpleName(List<String> nameParts) {
+public final class SimpleName {
+
+  /** Interned names by their raw, unsplit form. */
+  private static final ReferenceMap<String, SimpleName> BY_RAW_NAME = ReferenceMap.weakValues();
+
+  /** Split raw strings, which {@link #resolve(String)} appends without validating. */
+  private static final ReferenceMap<String, List<String>> PARTS_BY_RAW_NAME =
+      ReferenceMap.softValues();
+
+  /** Interned names by their parts, which makes equal names the same instance. */
+  private static final ReferenceMap<List<String>, SimpleName> BY_PARTS = ReferenceMap.weakValues();
+
+  private final List<String> nameParts;
+  private final int hashCode;
+
+  // Renderings are cached on first use. Races only compute the same immutable string twice.
+  private String upperCamelCase;
+  private String lowerCamelCase;
+
+  private SimpleName(List<String> nameParts) {
+    this.nameParts = nameParts;
+    this.hashCode = nameParts.hashCode();
+  }
 
   public static SimpleName of(String name) {
     requireNonNull(name);
 
+    var interned = BY_RAW_NAME.get(name);
+    if (interned != null) {
+      return interned;
+    }
+
     if (name.isBlank()) {
       throw new IllegalArgumentException("Simple name must not be blank");
     }
@@ -30,17 +62,37 @@ public record SimpleName(List<String> nameParts) {
       throw new IllegalArgumentException("Simple name must not start with a digit");
     }
 
-    return new SimpleName(splitName(name));
+    return BY_RAW_NAME.computeIfAbsent(name, raw -> intern(splitName(raw)));
+  }
+
+  private static SimpleName intern(List<String> nameParts) {
+    return BY_PARTS.computeIfAbsent(List.copyOf(nameParts), SimpleName::new);
+  }
+
+  /** The lower-case words of this name. */
+  public List<String> nameParts() {
+    return nameParts;
   }
 
   public String upperCamelCase() {
-    return nameParts.stream().map(this::upperCase).collect(Collectors.joining(""));
+    var rendered = upperCamelCase;
+    if (rendered == null) {
+      rendered = nameParts.stream().map(SimpleName::upperCase).collect(Collectors.joining(""));
+      upperCamelCase = rendered;
+    }
+    return rendered;
   }
 
   public String lowerCamelCase() {
-    var first = nameParts.get(0).toLowerCase();
-    var rest = nameParts.stream().skip(1).map(this::upperCase).collect(Collectors.joining(""));
-    return first + rest;
+    var rendered = lowerCamelCase;
+    if (rendered == null) {
+      var first = nameParts.get(0).toLowerCase();
+      var rest =
+          nameParts.stream().skip(1).map(SimpleName::upperCase).collect(Collectors.joining(""));
+      rendered = first + rest;
+      lowerCamelCase = rendered;
+    }
+    return rendered;
   }
 
   /**
@@ -51,8 +103,19 @@ public record SimpleName(List<String> nameParts) {
   public SimpleName resolve(String parts) {
     requireNonNull(parts);
     var copy = new ArrayList<>(nameParts);
-    copy.addAll(splitName(parts));
-    return new SimpleName(copy);
+    copy.addAll(PARTS_BY_RAW_NAME.computeIfAbsent(parts, raw -> List.copyOf(splitName(raw))));
+    return intern(copy);
+  }
+
+  /** Interned names are equal only if they are the same instance. */
+  @Override
+  public boolean equals(Object o) {
+    return this == o;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
   }
 
   /**
@@ -84,7 +147,7 @@ public record SimpleName(List<String> nameParts) {
     }
   }
 
-  private String upperCase(String word) {
+  private static String upperCase(String word) {
     return word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase();
   }
 
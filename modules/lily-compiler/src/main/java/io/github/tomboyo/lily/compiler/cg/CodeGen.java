@@ -20,10 +20,19 @@ import io.github.tomboyo.lily.compiler.ast.AstOperation;
 import io.github.tomboyo.lily.compiler.ast.AstResponse;
 import io.github.tomboyo.lily.compiler.ast.AstResponseSum;
 import io.github.tomboyo.lily.compiler.ast.AstTaggedOperations;
+import io.github.tomboyo.lily.compiler.jfr.RenderEvent;
 
 /** Generates java source code from AST */
 public class CodeGen {
   public static Source renderAst(Ast ast) {
+    var event = new RenderEvent();
+    event.begin();
+    var source = render(ast);
+    event.commit(source.fqn(), ast.getClass(), source.contents().length());
+    return source;
+  }
+
+  private static Source render(Ast ast) {
     return switch (ast) {
       case AstApi astApi -> renderAstAPi(astApi);
       case AstClass astClass -> renderClass(astClass);
@@ -2,17 +2,52 @@ package io.github.tomboyo.lily.compiler.cg;
 
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.MustacheFactory;
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Renders mustache templates.
+ *
+ * <p>Templates are compiled the first time they are rendered and cached for the lifetime of the
+ * JVM, so callers should only ever pass constant template strings (such as text blocks). The cache
+ * is thread-safe.
+ */
 public class Mustache {
 
   private static final MustacheFactory FACTORY = new DefaultMustacheFactory();
+  private static final Map<String, com.github.mustachejava.Mustache> TEMPLATES =
+      new ConcurrentHashMap<>();
 
   public static String writeString(String template, String name, Object scopes) {
-    var mustache = FACTORY.compile(new StringReader(template), name);
     var stringWriter = new StringWriter();
-    mustache.execute(stringWriter, scopes);
+    write(stringWriter, template, name, scopes);
     return stringWriter.toString();
   }
+
+  /**
+   * Render the template to the given writer.
+   *
+   * @param writer The writer to render to. The writer is flushed but not closed.
+   * @param template The mustache template source.
+   * @param name The name of the template, used in error messages.
+   * @param scopes The scope object(s) to render the template with.
+   */
+  public static void write(Writer writer, String template, String name, Object scopes) {
+    try {
+      compile(template, name).execute(writer, scopes).flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to render template " + name, e);
+    }
+  }
+
+  private static com.github.mustachejava.Mustache compile(String template, String name) {
+    // Templates are keyed by their contents rather than by name so that two templates can never
+    // collide. Template strings are constants, so their hash codes are computed only once.
+    return TEMPLATES.computeIfAbsent(template, key -> FACTORY.compile(new StringReader(key), name));
+  }
 }
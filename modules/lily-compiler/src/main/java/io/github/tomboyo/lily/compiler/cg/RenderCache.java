@@ -0,0 +1,302 @@
+package io.github.tomboyo.lily.compiler.cg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import io.github.tomboyo.lily.compiler.LilyVersion;
+import io.github.tomboyo.lily.compiler.ast.Ast;
+import io.github.tomboyo.lily.compiler.ast.Fqn;
+import io.github.tomboyo.lily.compiler.ast.PackageName;
+import io.github.tomboyo.lily.compiler.ast.SimpleName;
+import io.github.tomboyo.lily.compiler.util.StructuralDigest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent, content-addressed cache of rendered sources, so that AST which rendered to some
+ * source before is not rendered again.
+ *
+ * <p>Each source is saved in the cache directory under a SHA-256 hash of the AST node it was
+ * rendered from (see {@link StructuralDigest}) and the {@link LilyVersion#buildId() Lily build}.
+ * The same AST always renders to the same source, so a cached source is never stale, and the cache
+ * can be shared by any number of output directories, documents, and concurrent builds: the CLI, the
+ * Maven plugin, and long-lived processes like the daemon and {@code --watch} alike. Long-lived
+ * processes also keep sources in memory (until the garbage collector needs the space), so that
+ * their hits do not read the disk at all.
+ *
+ * <p>The cache is bounded by the total size of its sources. When it grows too large, the least
+ * recently used sources are deleted. Recency is kept in each file's modification time, to the hour,
+ * so that it survives between processes.
+ */
+public final class RenderCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RenderCache.class);
+
+  /** Caches which are open in this JVM, by directory, so that compilations share their index. */
+  private static final Map<Path, RenderCache> OPEN = new ConcurrentHashMap<>();
+
+  private static final String SUFFIX = ".java";
+
+  /** How stale a file's modification time may be before a hit updates it. */
+  private static final long TOUCH_INTERVAL_MILLIS = Duration.ofHours(1).toMillis();
+
+  /** A cached source. Guarded by the index. */
+  private static final class Entry {
+    private final long size;
+    private long lastTouched;
+    private SoftReference<String> contents;
+
+    private Entry(long size, long lastTouched, String contents) {
+      this.size = size;
+      this.lastTouched = lastTouched;
+      this.contents = new SoftReference<>(contents);
+    }
+  }
+
+  private final Path directory;
+  private final long maxBytes;
+
+  /** Every cached source by key, from least to most recently used. */
+  private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes = 0;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private RenderCache(Path directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Get the cache in the given directory, which is created if it does not exist. Repeated calls
+   * with the same directory and size share one cache.
+   *
+   * @param directory The directory in which to save rendered sources.
+   * @param maxBytes The most bytes of sources to keep.
+   * @return The cache.
+   */
+  public static RenderCache open(Path directory, long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+    }
+    return OPEN.compute(
+        directory.toAbsolutePath().normalize(),
+        (key, cache) -> cache != null && cache.maxBytes == maxBytes ? cache : load(key, maxBytes));
+  }
+
+  private static RenderCache load(Path directory, long maxBytes) {
+    var cache = new RenderCache(directory, maxBytes);
+    try {
+      Files.createDirectories(directory);
+      try (var files = Files.list(directory)) {
+        files
+            .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+            .flatMap(
+                file -> attributes(file).map(attributes -> Map.entry(file, attributes)).stream())
+            .sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+            .forEach(
+                entry ->
+                    cache.add(
+                        keyOf(entry.getKey()),
+                        new Entry(
+                            entry.getValue().size(),
+                            entry.getValue().lastModifiedTime().toMillis(),
+                            null)));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open render cache " + directory, e);
+    }
+    cache.evict();
+    return cache;
+  }
+
+  /**
+   * Get the source rendered from the AST, from the cache if possible. Otherwise render it with
+   * {@link CodeGen#renderAst(Ast)} and add it to the cache.
+   */
+  public Source render(Ast ast) {
+    var key = key(ast);
+    var contents = read(key);
+    if (contents.isPresent()) {
+      hits.increment();
+      return new Source(ast.name(), contents.get());
+    }
+
+    misses.increment();
+    var source = CodeGen.renderAst(ast);
+    store(key, source.contents());
+    return source;
+  }
+
+  /** The number of sources read from the cache since it was opened. */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /** The number of sources rendered because they were not in the cache since it was opened. */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /** Hash the AST and the Lily build which renders it. */
+  static String key(Ast ast) {
+    var digest =
+        new StructuralDigest(
+            (value, d) ->
+                switch (value) {
+                  case Fqn fqn -> {
+                    d.tag('Q').string(fqn.packageName().toString()).walk(fqn.typeName());
+                    d.walk(fqn.typeParameters());
+                    yield true;
+                  }
+                  case PackageName packageName -> {
+                    d.tag('P').string(packageName.toString());
+                    yield true;
+                  }
+                  case SimpleName simpleName -> {
+                    d.tag('N').string(simpleName.toString()).walk(simpleName.nameParts());
+                    yield true;
+                  }
+                  default -> false;
+                });
+    digest.string(LilyVersion.buildId()).walk(ast);
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static String keyOf(Path file) {
+    var name = file.getFileName().toString();
+    return name.substring(0, name.length() - SUFFIX.length());
+  }
+
+  private Path file(String key) {
+    return directory.resolve(key + SUFFIX);
+  }
+
+  /** Read the source from memory or else disk, and mark it as the most recently used. */
+  private Optional<String> read(String key) {
+    var file = file(key);
+    var now = System.currentTimeMillis();
+    var touch = false;
+    String contents = null;
+    synchronized (index) {
+      // Getting the entry also makes it the most recently used.
+      var entry = index.get(key);
+      if (entry != null) {
+        touch = now - entry.lastTouched > TOUCH_INTERVAL_MILLIS;
+        if (touch) {
+          entry.lastTouched = now;
+        }
+        contents = entry.contents.get();
+      }
+    }
+    if (touch) {
+      touch(file, now);
+    }
+    if (contents != null) {
+      return Optional.of(contents);
+    }
+
+    try {
+      contents = new String(Files.readAllBytes(file), UTF_8);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      LOGGER.debug("Could not read {} from the render cache", file, e);
+      return Optional.empty();
+    }
+    synchronized (index) {
+      var entry = index.get(key);
+      if (entry == null) {
+        // Another process added it just now.
+        add(key, new Entry(contents.getBytes(UTF_8).length, now, contents));
+      } else {
+        entry.contents = new SoftReference<>(contents);
+      }
+    }
+    return Optional.of(contents);
+  }
+
+  private static void touch(Path file, long now) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+    } catch (IOException e) {
+      // Another process evicted it. It will be rendered again if needed.
+      LOGGER.debug("Could not touch {} in the render cache", file, e);
+    }
+  }
+
+  /** Save the source to the cache, via a temporary file so that readers never see part of it. */
+  private void store(String key, String contents) {
+    var file = file(key);
+    var bytes = contents.getBytes(UTF_8);
+    if (bytes.length > maxBytes) {
+      return;
+    }
+    try {
+      var tmp = Files.createTempFile(directory, key, ".tmp");
+      Files.write(tmp, bytes);
+      Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.debug("Could not save {} to the render cache", file, e);
+      return;
+    }
+    synchronized (index) {
+      add(key, new Entry(bytes.length, System.currentTimeMillis(), contents));
+    }
+    evict();
+  }
+
+  /** Add or replace an entry. Callers must hold the index. */
+  private void add(String key, Entry entry) {
+    var previous = index.put(key, entry);
+    bytes += entry.size - (previous == null ? 0 : previous.size);
+  }
+
+  /** Delete the least recently used sources until the cache fits in its size. */
+  private void evict() {
+    while (true) {
+      Path file;
+      synchronized (index) {
+        if (bytes <= maxBytes || index.isEmpty()) {
+          return;
+        }
+        var eldest = index.entrySet().iterator().next();
+        index.remove(eldest.getKey());
+        bytes -= eldest.getValue().size;
+        file = file(eldest.getKey());
+      }
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOGGER.debug("Could not evict {} from the render cache", file, e);
+      }
+    }
+  }
+
+  private static Optional<BasicFileAttributes> attributes(Path file) {
+    try {
+      return Optional.of(Files.readAttributes(file, BasicFileAttributes.class));
+    } catch (IOException e) {
+      // Another process evicted it.
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
+
+/**
+ * Compiles every OAS document listed by a manifest in one JVM.
+ *
+ * <p>The manifest is YAML or JSON:
+ *
+ * <pre>
+ * specs:
+ *   - source: pets.yaml
+ *     outputDir: target/generated-sources
+ *     basePackage: com.example.pets
+ * </pre>
+ *
+ * <p>Relative paths are resolved against the manifest's directory. Documents are compiled
+ * concurrently, and share the parsers and compiled templates, which are cached for the lifetime of
+ * the JVM.
+ */
+@Command(
+    name = "batch",
+    mixinStandardHelpOptions = true,
+    description = "Compile every OpenAPI schema listed by a manifest, concurrently.")
+public class BatchCommand implements Callable<Integer> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchCommand.class);
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper(new YAMLFactory())
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+
+  @Option(
+      names = "--manifest",
+      required = true,
+      description = "YAML or JSON manifest listing the source, outputDir and basePackage of specs.")
+  private Path manifest;
+
+  @Option(
+      names = "--parallelism",
+      description = "Number of documents to compile at once. Defaults to available processors.")
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  @Option(
+      names = "--snapshot-dir",
+      description = "Directory in which to cache parsed OAS documents between compilations.")
+  private Path snapshotDirectory;
+
+  @Option(
+      names = "--spec-cache-dir",
+      description = "Directory in which to keep local copies of remote OAS documents.")
+  private Path specCacheDirectory;
+
+  @Option(
+      names = "--offline",
+      description = "Only read remote OAS documents from --spec-cache-dir; never use the network.")
+  private boolean offline;
+
+  @Option(
+      names = "--incremental",
+      description =
+          "Only re-generate sources for the schemas and operations which changed since the last"
+              + " compilation of each document.")
+  private boolean incremental;
+
+  @Option(
+      names = "--render-cache-dir",
+      description =
+          "Directory in which to cache rendered sources by the AST they were rendered from, so"
+              + " that unchanged types are not rendered again. May be shared by any number of"
+              + " compilations.")
+  private Path renderCacheDirectory;
+
+  @Option(
+      names = "--render-cache-size",
+      description =
+          "The most MiB of sources to keep in --render-cache-dir. The least recently used are"
+              + " evicted first. Defaults to 256.")
+  private long renderCacheSize = 256;
+
+  @Option(
+      names = "--jfr",
+      description = "Write a JDK Flight Recording of every compilation to this file.")
+  private Path jfr;
+
+  @Spec private CommandSpec spec;
+
+  /** The contents of a manifest file. */
+  record Manifest(List<Entry> specs) {}
+
+  /** One document to compile. */
+  record Entry(String source, String outputDir, String basePackage) {}
+
+  /** Where an entry generates sources. */
+  private record Target(Path outputDir, String basePackage) {}
+
+  /** The outcome of compiling one entry. */
+  private record Result(Entry entry, long millis, int sources, Exception failure) {}
+
+  @Override
+  public Integer call() {
+    if (offline && specCacheDirectory == null) {
+      throw new ParameterException(spec.commandLine(), "--offline requires --spec-cache-dir");
+    }
+    Manifest contents;
+    CompilerOptions options;
+    try {
+      contents = MAPPER.readValue(manifest.toFile(), Manifest.class);
+      if (contents == null || contents.specs() == null || contents.specs().contains(null)) {
+        LOGGER.error("Failed to read manifest " + manifest + ": specs must be a list of specs");
+        return 1;
+      }
+      options =
+          CompilerOptions.newBuilder()
+              .snapshotDirectory(snapshotDirectory)
+              .specCacheDirectory(specCacheDirectory)
+              .offline(offline)
+              .incremental(incremental)
+              .renderCacheDirectory(renderCacheDirectory)
+              .renderCacheSize(renderCacheSize * 1024 * 1024)
+              .build();
+    } catch (IOException e) {
+      LOGGER.error("Failed to read manifest " + manifest, e);
+      return 1;
+    } catch (RuntimeException e) {
+      LOGGER.error("Invalid options", e);
+      return 1;
+    }
+    if (parallelism < 1) {
+      LOGGER.error("--parallelism must be at least 1: " + parallelism);
+      return 1;
+    }
+    // Entries compile concurrently, and each deletes the stale sources of its package.
+    var targets = new HashSet<Target>();
+    for (var entry : contents.specs()) {
+      if (entry.outputDir() != null
+          && entry.basePackage() != null
+          && !targets.add(
+              new Target(
+                  manifest.toAbsolutePath().getParent().resolve(entry.outputDir()).normalize(),
+                  entry.basePackage()))) {
+        LOGGER.error(
+            "Every spec with the same outputDir must have a different basePackage: " + entry);
+        return 1;
+      }
+    }
+
+    Optional<Recording> recording;
+    try {
+      recording = CompileCommand.startRecording(jfr);
+    } catch (IOException | ParseException e) {
+      LOGGER.error("Failed to start a flight recording to " + jfr, e);
+      return 1;
+    }
+    try {
+      return compileAll(contents, options);
+    } finally {
+      recording.ifPresent(CompileCommand::stopRecording);
+    }
+  }
+
+  private int compileAll(Manifest contents, CompilerOptions options) {
+    var baseDirectory = manifest.toAbsolutePath().getParent();
+    var start = System.nanoTime();
+    var executor = Executors.newFixedThreadPool(parallelism);
+    var results = new ArrayList<Result>();
+    try {
+      var futures = new ArrayList<Future<Result>>();
+      for (var entry : contents.specs()) {
+        futures.add(executor.submit(() -> compile(baseDirectory, entry, options)));
+      }
+      for (var future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 1;
+    } catch (ExecutionException e) {
+      // compile() catches everything, so this is a bug.
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    var failures = 0;
+    for (var result : results) {
+      if (result.failure() == null) {
+        LOGGER.info(
+            "{} ms\t{} sources\t{} ({})",
+            result.millis(),
+            result.sources(),
+            result.entry().basePackage(),
+            result.entry().source());
+      } else {
+        failures++;
+        LOGGER.error(
+            "{} ms\tFAILED\t{} ({})",
+            result.millis(),
+            result.entry().basePackage(),
+            result.entry().source(),
+            result.failure());
+      }
+    }
+    LOGGER.info(
+        "Compiled {} of {} specs in {} ms",
+        results.size() - failures,
+        results.size(),
+        (System.nanoTime() - start) / 1_000_000);
+    return failures == 0 ? 0 : 1;
+  }
+
+  private static Result compile(Path baseDirectory, Entry entry, CompilerOptions options) {
+    var start = System.nanoTime();
+    try {
+      if (entry.source() == null || entry.outputDir() == null || entry.basePackage() == null) {
+        throw new IllegalArgumentException("Each spec needs a source, outputDir and basePackage");
+      }
+      var uri = CompileCommand.toUri(entry.source());
+      var output = baseDirectory.resolve(entry.outputDir());
+      Map<String, Path> sources;
+      if (uri.isPresent() && !uri.get().getScheme().equals("file")) {
+        sources = LilyCompiler.compile(uri.get().toURL(), output, entry.basePackage(), options);
+      } else {
+        var path = uri.map(Path::of).orElseGet(() -> baseDirectory.resolve(entry.source()));
+        sources = LilyCompiler.compile(path, output, entry.basePackage(), options);
+      }
+      return new Result(entry, (System.nanoTime() - start) / 1_000_000, sources.size(), null);
+    } catch (Exception e) {
+      return new Result(entry, (System.nanoTime() - start) / 1_000_000, 0, e);
+    }
+  }
+}
@@ -1,19 +1,38 @@
 package io.github.tomboyo.lily.compiler.cli;
 
+import io.github.tomboyo.lily.compiler.CompileResult;
+import io.github.tomboyo.lily.compiler.CompilerOptions;
 import io.github.tomboyo.lily.compiler.LilyCompiler;
 import io.github.tomboyo.lily.compiler.OasParseException;
+import io.github.tomboyo.lily.compiler.icg.OperationFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
 
 @Command(
     name = "compile",
     mixinStandardHelpOptions = true,
     version = "0.1.0",
-    description = "Compile an OpenAPI schema to java source code.")
+    description = "Compile an OpenAPI schema to java source code.",
+    subcommands = {DaemonCommand.class, BatchCommand.class})
 public class CompileCommand implements Callable<Integer> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CompileCommand.class);
@@ -27,17 +46,333 @@ public class CompileCommand implements Callable<Integer> {
   @Option(names = "--base-package", description = "Package name under which to generates sources.")
   private String basePackage;
 
+  @Option(
+      names = "--snapshot-dir",
+      description = "Directory in which to cache parsed OAS documents between compilations.")
+  private Path snapshotDirectory;
+
+  @Option(
+      names = "--include-tag",
+      description = "Only generate operations with this tag. May be repeated.")
+  private List<String> includeTags = List.of();
+
+  @Option(names = "--exclude-tag", description = "Skip operations with this tag. May be repeated.")
+  private List<String> excludeTags = List.of();
+
+  @Option(
+      names = "--include-operation",
+      description = "Only generate the operation with this operationId. May be repeated.")
+  private List<String> includeOperationIds = List.of();
+
+  @Option(
+      names = "--exclude-operation",
+      description = "Skip the operation with this operationId. May be repeated.")
+  private List<String> excludeOperationIds = List.of();
+
+  @Option(
+      names = "--include-path",
+      description =
+          "Only generate operations whose path matches this glob, like /pets/**. May be repeated.")
+  private List<String> includePaths = List.of();
+
+  @Option(
+      names = "--exclude-path",
+      description = "Skip operations whose path matches this glob. May be repeated.")
+  private List<String> excludePaths = List.of();
+
+  @Option(
+      names = "--parallelism",
+      description = "Number of threads with which to evaluate the OAS document. Defaults to 1.")
+  private int parallelism = 1;
+
+  @Option(
+      names = "--spec-cache-dir",
+      description =
+          "Directory in which to keep local copies of remote OAS documents. Unchanged documents"
+              + " are not downloaded again.")
+  private Path specCacheDirectory;
+
+  @Option(
+      names = "--offline",
+      description = "Only read remote OAS documents from --spec-cache-dir; never use the network.")
+  private boolean offline;
+
+  @Option(
+      names = "--watch",
+      description =
+          "After compiling, keep running and recompile whenever the local --source (or a local"
+              + " file it $refs) changes. Only files whose contents change are rewritten.")
+  private boolean watch;
+
+  @Option(
+      names = "--daemon",
+      description =
+          "Forward this compilation to the daemon listening on this socket (see `daemon`) instead"
+              + " of compiling in this JVM.")
+  private Path daemonSocket;
+
+  @Option(
+      names = "--stats",
+      description =
+          "Log how long each phase of the compilation took, and what it generated and wrote.")
+  private boolean stats;
+
+  @Option(
+      names = "--jfr",
+      description =
+          "Write a JDK Flight Recording of the compilation to this file. It includes an event for"
+              + " every schema, operation, and source, which JDK Mission Control can display.")
+  private Path jfr;
+
+  @Option(
+      names = "--deduplicate-inline-schemas",
+      description =
+          "Generate one shared type for structurally identical inline object schemas, like the"
+              + " request bodies of similar operations, instead of one type each.")
+  private boolean deduplicateInlineSchemas;
+
+  @Option(
+      names = "--footprint",
+      description =
+          "Write a report of every generated source's lines, bytes and estimated class count,"
+              + " attributed to the schema or operation it was generated from, to this file. The"
+              + " report is CSV if the file name ends with .csv, and JSON otherwise.")
+  private Path footprint;
+
+  @Option(
+      names = "--incremental",
+      description =
+          "Only re-generate sources for the schemas and operations which changed since the last"
+              + " compilation into the output directory. The result is the same as a full"
+              + " compilation.")
+  private boolean incremental;
+
+  @Option(
+      names = "--render-cache-dir",
+      description =
+          "Directory in which to cache rendered sources by the AST they were rendered from, so"
+              + " that unchanged types are not rendered again. May be shared by any number of"
+              + " compilations.")
+  private Path renderCacheDirectory;
+
+  @Option(
+      names = "--render-cache-size",
+      description =
+          "The most MiB of sources to keep in --render-cache-dir. The least recently used are"
+              + " evicted first. Defaults to 256.")
+  private long renderCacheSize = 256;
+
+  @Spec private CommandSpec spec;
+
+  /** The directory against which relative paths are resolved. The daemon sets the client's. */
+  Path workingDirectory = Path.of("");
+
+  /** Where to report errors in addition to the log. The daemon sets one for its client. */
+  PrintWriter diagnostics;
+
   @Override
   public Integer call() {
+    if (offline && specCacheDirectory == null) {
+      throw new ParameterException(spec.commandLine(), "--offline requires --spec-cache-dir");
+    }
+    if (daemonSocket != null) {
+      return forwardToDaemon();
+    }
+
+    Optional<Recording> recording;
     try {
-      LilyCompiler.compile(source, output, basePackage);
+      recording = startRecording(resolve(jfr));
+    } catch (IOException | ParseException e) {
+      LOGGER.error("Failed to start a flight recording to " + jfr, e);
+      return 1;
+    }
+    try {
+      return compile();
+    } finally {
+      recording.ifPresent(CompileCommand::stopRecording);
+    }
+  }
+
+  private int compile() {
+    try {
+      var options =
+          CompilerOptions.newBuilder()
+              .snapshotDirectory(resolve(snapshotDirectory))
+              .operationFilter(
+                  OperationFilter.newBuilder()
+                      .includeTags(includeTags)
+                      .excludeTags(excludeTags)
+                      .includeOperationIds(includeOperationIds)
+                      .excludeOperationIds(excludeOperationIds)
+                      .includePaths(includePaths)
+                      .excludePaths(excludePaths)
+                      .build())
+              .parallelism(parallelism)
+              .specCacheDirectory(resolve(specCacheDirectory))
+              .offline(offline)
+              .footprint(footprint != null)
+              .deduplicateInlineSchemas(deduplicateInlineSchemas)
+              .incremental(incremental)
+              .renderCacheDirectory(resolve(renderCacheDirectory))
+              .renderCacheSize(renderCacheSize * 1024 * 1024)
+              .build();
+      var uri = toUri(source);
+      if (uri.isPresent() && !uri.get().getScheme().equals("file")) {
+        if (watch) {
+          LOGGER.error("--watch requires a local --source: " + source);
+          return 1;
+        }
+        report(
+            LilyCompiler.compileWithResult(
+                uri.get().toURL(), resolve(output), basePackage, options));
+        return 0;
+      }
+
+      // Local files are memory-mapped rather than streamed from a URL.
+      var path = uri.map(Path::of).orElseGet(() -> resolve(Path.of(source)));
+      if (watch) {
+        return watch(path, options);
+      }
+      report(LilyCompiler.compileWithResult(path, resolve(output), basePackage, options));
       return 0;
     } catch (OasParseException e) {
-      LOGGER.error("Failed to parse OAS document", e);
+      error("Failed to parse OAS document", e);
+      return 1;
+    } catch (MalformedURLException e) {
+      error("Invalid --source: " + source, e);
       return 1;
     } catch (RuntimeException e) {
-      LOGGER.error("Unexpected error during compilation", e);
+      error("Unexpected error during compilation", e);
+      return 1;
+    }
+  }
+
+  /**
+   * Compile the document, then recompile it every time it changes until interrupted. Failures are
+   * logged rather than fatal, since the user is probably in the middle of editing the document.
+   * Templates, the snapshot cache, and the JIT all stay warm between compilations.
+   */
+  private int watch(Path path, CompilerOptions options) {
+    try (var watcher = new SpecWatcher(path)) {
+      while (true) {
+        var start = System.nanoTime();
+        try {
+          var result = LilyCompiler.compileWithResult(path, resolve(output), basePackage, options);
+          LOGGER.info(
+              "Compiled {} sources in {} ms",
+              result.sources().size(),
+              (System.nanoTime() - start) / 1_000_000);
+          report(result);
+        } catch (OasParseException | RuntimeException e) {
+          LOGGER.error("Failed to compile " + path, e);
+        }
+
+        try {
+          watcher.refresh();
+        } catch (IOException e) {
+          LOGGER.warn("Failed to find the files referenced by {}", path, e);
+        }
+        LOGGER.info("Watching {} for changes", path);
+        watcher.awaitChange();
+      }
+    } catch (IOException e) {
+      LOGGER.error("Failed to watch " + path, e);
+      return 1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+  }
+
+  /**
+   * Send our arguments to the daemon, which compiles on our behalf. This never loads the compiler
+   * itself, so the client starts quickly.
+   */
+  private int forwardToDaemon() {
+    if (watch || jfr != null) {
+      LOGGER.error("--watch and --jfr cannot be used with --daemon");
+      return 1;
+    }
+    try {
+      return DaemonCommand.forward(
+          daemonSocket,
+          workingDirectory,
+          DaemonCommand.withoutDaemonOption(spec.commandLine().getParseResult().originalArgs()),
+          spec.commandLine().getErr());
+    } catch (IOException e) {
+      LOGGER.error("Failed to reach the daemon on " + daemonSocket, e);
       return 1;
     }
   }
+
+  /**
+   * Start a flight recording with the profiling settings if a destination file is given. The file
+   * is written when the recording is closed, or when the JVM exits, since --watch runs until
+   * killed.
+   */
+  static Optional<Recording> startRecording(Path file) throws IOException, ParseException {
+    if (file == null) {
+      return Optional.empty();
+    }
+    var recording = new Recording(Configuration.getConfiguration("profile"));
+    recording.setName("lily");
+    recording.setDestination(file);
+    recording.setDumpOnExit(true);
+    recording.start();
+    return Optional.of(recording);
+  }
+
+  /** Stop the recording, which writes it to its destination, and release its resources. */
+  static void stopRecording(Recording recording) {
+    recording.stop();
+    recording.close();
+  }
+
+  /** Log statistics and write the footprint report, if requested. */
+  private void report(CompileResult result) {
+    if (stats) {
+      LOGGER.info("Compilation statistics:\n{}", result.summary());
+    }
+    if (result.footprint().isPresent()) {
+      var report = resolve(footprint);
+      var contents =
+          report.toString().endsWith(".csv")
+              ? result.footprint().get().toCsv()
+              : result.footprint().get().toJson();
+      try {
+        Files.writeString(report, contents);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to write footprint report to " + report, e);
+      }
+    }
+  }
+
+  /** Log an error, and report it to the daemon's client if there is one. */
+  private void error(String message, Exception e) {
+    LOGGER.error(message, e);
+    if (diagnostics != null) {
+      diagnostics.println(message + ": " + e);
+      for (var cause = e.getCause(); cause != null; cause = cause.getCause()) {
+        diagnostics.println("  Caused by: " + cause);
+      }
+    }
+  }
+
+  private Path resolve(Path path) {
+    return path == null ? null : workingDirectory.resolve(path);
+  }
+
+  /** Interpret the source as a URI if it has a scheme (like https://), or else return empty. */
+  static Optional<URI> toUri(String source) {
+    try {
+      var uri = new URI(source);
+      // Single-letter schemes are Windows drive letters, like C:\foo.yaml
+      if (uri.getScheme() != null && uri.getScheme().length() > 1) {
+        return Optional.of(uri);
+      }
+    } catch (URISyntaxException e) {
+      // Not a URI, so assume it's a path.
+    }
+    return Optional.empty();
+  }
 }
@@ -0,0 +1,180 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Keeps a compiler resident so that repeated compilations skip JVM startup, class loading, and JIT
+ * warm-up.
+ *
+ * <p>The daemon listens on a Unix domain socket. Each request carries the client's working
+ * directory and its compile command arguments; the daemon runs a {@link CompileCommand} with them
+ * and replies with its exit code and any errors, which the client prints. Options which would run
+ * forever or affect the whole daemon, like {@code --watch} and {@code --jfr}, and subcommands are
+ * rejected. Requests are handled concurrently, so clients must not compile to the same base package
+ * and output directory at the same time.
+ */
+@Command(
+    name = "daemon",
+    mixinStandardHelpOptions = true,
+    description =
+        "Keep a compiler running and accept requests from `compile --daemon <socket>` until"
+            + " interrupted.")
+public class DaemonCommand implements Callable<Integer> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DaemonCommand.class);
+
+  /** The most arguments a client may send. */
+  static final int MAX_ARGS = 1024;
+
+  /** Compile options which only the client may use. */
+  private static final List<String> CLIENT_OPTIONS = List.of("--daemon", "--watch", "--jfr");
+
+  @Option(
+      names = "--socket",
+      required = true,
+      description = "Unix domain socket on which to listen. A stale socket file is replaced.")
+  private Path socket;
+
+  @Option(
+      names = "--threads",
+      description = "Maximum number of concurrent compilations. Defaults to available processors.")
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  @Override
+  public Integer call() {
+    var executor = Executors.newFixedThreadPool(threads);
+    try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      Files.deleteIfExists(socket);
+      server.bind(UnixDomainSocketAddress.of(socket));
+      // The finally block below does not run if the JVM is terminated by a signal.
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> socket.toFile().delete()));
+      LOGGER.info("Listening on {}", socket);
+      while (true) {
+        var channel = server.accept();
+        executor.execute(() -> handle(channel));
+      }
+    } catch (ClosedByInterruptException e) {
+      return 0;
+    } catch (IOException e) {
+      LOGGER.error("Daemon failed on " + socket, e);
+      return 1;
+    } finally {
+      executor.shutdownNow();
+      try {
+        Files.deleteIfExists(socket);
+      } catch (IOException e) {
+        LOGGER.warn("Failed to delete socket {}", socket, e);
+      }
+    }
+  }
+
+  private static void handle(SocketChannel channel) {
+    try (var in = new DataInputStream(Channels.newInputStream(channel));
+        var out = new DataOutputStream(Channels.newOutputStream(channel))) {
+      var workingDirectory = Path.of(in.readUTF());
+      var count = in.readInt();
+      if (count < 0 || count > MAX_ARGS) {
+        reply(out, 2, "Expected at most " + MAX_ARGS + " arguments, but got " + count + "\n");
+        return;
+      }
+      var args = new String[count];
+      for (var i = 0; i < args.length; i++) {
+        args[i] = in.readUTF();
+      }
+
+      var errors = new StringWriter();
+      var command = new CompileCommand();
+      command.workingDirectory = workingDirectory;
+      command.diagnostics = new PrintWriter(errors, true);
+      var commandLine = compileCommandLine(command);
+      commandLine.setOut(command.diagnostics);
+      commandLine.setErr(command.diagnostics);
+      var exitCode = commandLine.execute(args);
+      reply(out, exitCode, errors.toString());
+    } catch (IOException | InvalidPathException e) {
+      LOGGER.warn("Failed to handle daemon request", e);
+    }
+  }
+
+  /** The compile command, without the subcommands and options which the daemon does not run. */
+  static CommandLine compileCommandLine(CompileCommand command) {
+    var commandLine = new CommandLine(command);
+    var spec = commandLine.getCommandSpec();
+    for (var name : List.copyOf(spec.subcommands().keySet())) {
+      spec.removeSubcommand(name);
+    }
+    for (var name : CLIENT_OPTIONS) {
+      spec.remove(spec.findOption(name));
+    }
+    return commandLine;
+  }
+
+  private static void reply(DataOutputStream out, int exitCode, String errors) throws IOException {
+    var bytes = errors.getBytes(UTF_8);
+    out.writeInt(exitCode);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Ask the daemon listening on the socket to run the compile command with the given arguments.
+   *
+   * @param errors Where to print the errors the daemon reports.
+   * @return The exit code of the compile command.
+   */
+  static int forward(Path socket, Path workingDirectory, List<String> args, PrintWriter errors)
+      throws IOException {
+    try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        var in = new DataInputStream(Channels.newInputStream(channel));
+        var out = new DataOutputStream(Channels.newOutputStream(channel))) {
+      out.writeUTF(workingDirectory.toAbsolutePath().toString());
+      out.writeInt(args.size());
+      for (var arg : args) {
+        out.writeUTF(arg);
+      }
+      out.flush();
+      var exitCode = in.readInt();
+      errors.print(new String(in.readNBytes(in.readInt()), UTF_8));
+      errors.flush();
+      return exitCode;
+    }
+  }
+
+  /** Remove the --daemon option, which only concerns the client, from compile arguments. */
+  static List<String> withoutDaemonOption(List<String> args) {
+    var result = new ArrayList<String>();
+    for (var i = 0; i < args.size(); i++) {
+      var arg = args.get(i);
+      if (arg.equals("--daemon")) {
+        i++;
+      } else if (!arg.startsWith("--daemon=")) {
+        result.add(arg);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,192 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.tomboyo.lily.compiler.OasParseException;
+import io.github.tomboyo.lily.compiler.oas.OasReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches a local OAS document, and any local files it $refs directly or through other files, for
+ * changes.
+ *
+ * <p>A WatchService can only watch directories, so the watcher registers the directory of every
+ * watched file and ignores events for other files in those directories.
+ */
+class SpecWatcher implements AutoCloseable {
+
+  /** Editors often save a file in several steps, so we wait this long for events to settle. */
+  private static final long QUIET_PERIOD_MS = 50;
+
+  /** The $refs found in a file, and the attributes it had when we read them. */
+  private record Scan(FileTime lastModified, long size, Set<Path> refs) {}
+
+  private final Path spec;
+  private final WatchService watchService;
+  private final Map<Path, WatchKey> keys = new HashMap<>();
+  private Set<Path> files = Set.of();
+  private Map<Path, Scan> scans = Map.of();
+
+  SpecWatcher(Path spec) throws IOException {
+    this.spec = spec.toAbsolutePath().normalize();
+    this.watchService = this.spec.getFileSystem().newWatchService();
+    refresh();
+  }
+
+  /**
+   * Watch the document and the files it currently $refs, and stop watching directories which no
+   * longer contain any of them. Call this after every compilation.
+   */
+  void refresh() throws IOException {
+    var files = new HashSet<Path>();
+    files.add(spec);
+    files.addAll(referencedFiles());
+
+    var directories = new HashSet<Path>();
+    for (var file : files) {
+      directories.add(file.getParent());
+    }
+    var iterator = keys.entrySet().iterator();
+    while (iterator.hasNext()) {
+      var entry = iterator.next();
+      if (!directories.contains(entry.getKey())) {
+        entry.getValue().cancel();
+        iterator.remove();
+      }
+    }
+    for (var directory : directories) {
+      if (!keys.containsKey(directory) && Files.isDirectory(directory)) {
+        keys.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY));
+      }
+    }
+    this.files = files;
+  }
+
+  /** The directories currently registered with the watch service. */
+  Set<Path> directories() {
+    return Set.copyOf(keys.keySet());
+  }
+
+  /** Block until a watched file changes. */
+  void awaitChange() throws InterruptedException {
+    while (!drain(watchService.take())) {}
+
+    WatchKey next;
+    while ((next = watchService.poll(QUIET_PERIOD_MS, MILLISECONDS)) != null) {
+      drain(next);
+    }
+  }
+
+  /** Consume the key's events, and return true if any of them concern a watched file. */
+  private boolean drain(WatchKey key) {
+    var directory = (Path) key.watchable();
+    var changed = false;
+    for (var event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW || files.contains(directory.resolve((Path) event.context()))) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+
+  /**
+   * Find the local files named by $refs in the document, relative to the document, and by $refs in
+   * those files in turn. Files which are missing or can not be parsed are still found, so that we
+   * notice when they are fixed, but we can not know what they $ref.
+   *
+   * <p>Only files whose size or modification time changed since the last call are parsed again, so
+   * that an edit to one file does not cost a parse of every file.
+   */
+  Set<Path> referencedFiles() {
+    var scans = new HashMap<Path, Scan>();
+    var visited = new HashSet<Path>();
+    visited.add(spec);
+    var pending = new ArrayDeque<Path>();
+    pending.add(spec);
+    while (!pending.isEmpty()) {
+      var file = pending.remove();
+      var scan = scan(file);
+      scans.put(file, scan);
+      for (var target : scan.refs()) {
+        if (visited.add(target)) {
+          pending.add(target);
+        }
+      }
+    }
+    this.scans = scans;
+    visited.remove(spec);
+    return visited;
+  }
+
+  /** Get the $refs of a file, from the last scan if the file has not changed since. */
+  private Scan scan(Path file) {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      return new Scan(null, -1, Set.of());
+    }
+    if (!attributes.isRegularFile()) {
+      return new Scan(null, -1, Set.of());
+    }
+
+    var previous = scans.get(file);
+    if (previous != null
+        && attributes.lastModifiedTime().equals(previous.lastModified())
+        && attributes.size() == previous.size()) {
+      return previous;
+    }
+    return new Scan(attributes.lastModifiedTime(), attributes.size(), externalRefs(file));
+  }
+
+  /** Find the local files named by $refs in one file, relative to that file. */
+  private static Set<Path> externalRefs(Path file) {
+    JsonNode tree;
+    try {
+      tree = OasReader.treeFromPath(file);
+    } catch (OasParseException e) {
+      // The user is probably in the middle of editing it. The compiler reports the error.
+      return Set.of();
+    }
+
+    var files = new HashSet<Path>();
+    var nodes = new ArrayDeque<JsonNode>();
+    nodes.add(tree);
+    while (!nodes.isEmpty()) {
+      var node = nodes.remove();
+      // Only the values of $ref keys are references. A "$ref" within a description is just text.
+      var ref = node.isObject() ? node.get("$ref") : null;
+      if (ref != null && ref.isTextual()) {
+        var target = ref.textValue();
+        var fragment = target.indexOf('#');
+        target = fragment == -1 ? target : target.substring(0, fragment);
+        if (!target.isEmpty() && !target.contains("://")) {
+          files.add(file.getParent().resolve(target).normalize());
+        }
+      }
+      node.elements().forEachRemaining(nodes::add);
+    }
+    return files;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
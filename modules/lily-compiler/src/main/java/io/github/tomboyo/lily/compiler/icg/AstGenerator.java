@@ -6,10 +6,20 @@ import static org.slf4j.LoggerFactory.getLogger;
 import io.github.tomboyo.lily.compiler.ast.Ast;
 import io.github.tomboyo.lily.compiler.ast.PackageName;
 import io.github.tomboyo.lily.compiler.ast.SimpleName;
+import io.github.tomboyo.lily.compiler.icg.OasOperationToAst.TagsOperationAndAst;
+import io.github.tomboyo.lily.compiler.jfr.EvaluateEvent;
 import io.github.tomboyo.lily.compiler.oas.model.Components;
 import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import io.github.tomboyo.lily.compiler.oas.model.Operation;
+import io.github.tomboyo.lily.compiler.util.Pair;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 
@@ -17,57 +27,190 @@ public class AstGenerator {
 
   private static final Logger LOGGER = getLogger(AstGenerator.class);
 
+  /** The origin of AST which is generated from the document as a whole, like the API root. */
+  public static final String API_ORIGIN = "(api)";
+
   private final PackageName basePackage;
+  private final OperationFilter filter;
+  private final Predicate<String> origins;
+  private final RefResolver refResolver;
+  private final Optional<ForkJoinPool> pool;
 
-  private AstGenerator(PackageName basePackage) {
+  private AstGenerator(
+      PackageName basePackage,
+      OperationFilter filter,
+      Predicate<String> origins,
+      RefResolver refResolver,
+      Optional<ForkJoinPool> pool) {
     this.basePackage = basePackage;
+    this.filter = filter;
+    this.origins = origins;
+    this.refResolver = refResolver;
+    this.pool = pool;
   }
 
   public static Stream<Ast> evaluate(PackageName basePackage, OpenApi openApi) {
-    return new AstGenerator(basePackage).evaluate(openApi);
+    return evaluate(basePackage, openApi, OperationFilter.all());
+  }
+
+  /**
+   * Evaluate only the operations which pass the given filter, and only those component schemas
+   * which are reachable from them.
+   */
+  public static Stream<Ast> evaluate(
+      PackageName basePackage, OpenApi openApi, OperationFilter filter) {
+    return evaluate(basePackage, openApi, filter, 1);
+  }
+
+  /**
+   * Like {@link #evaluate(PackageName, OpenApi, OperationFilter)}, but evaluates component schemas
+   * and path items on up to {@code parallelism} threads. The result is the same, in the same order,
+   * regardless of parallelism. When parallelism is 1, no threads are created.
+   */
+  public static Stream<Ast> evaluate(
+      PackageName basePackage, OpenApi openApi, OperationFilter filter, int parallelism) {
+    return evaluateWithOrigins(basePackage, openApi, filter, parallelism).map(Pair::right);
+  }
+
+  /**
+   * Like {@link #evaluate(PackageName, OpenApi, OperationFilter, int)}, but pairs each AST with the
+   * part of the document it was generated from: a component schema's JSON pointer (like {@code
+   * #/components/schemas/Pet}), an operationId, or {@link #API_ORIGIN} for the API root and the
+   * groups of operations generated from tags.
+   */
+  public static Stream<Pair<String, Ast>> evaluateWithOrigins(
+      PackageName basePackage, OpenApi openApi, OperationFilter filter, int parallelism) {
+    return evaluateWithOrigins(basePackage, openApi, filter, parallelism, origin -> true);
+  }
+
+  /**
+   * Like {@link #evaluateWithOrigins(PackageName, OpenApi, OperationFilter, int)}, but only returns
+   * AST whose origin passes the given predicate. Component schemas and operations with other
+   * origins are not evaluated at all, except that every operation is evaluated when {@link
+   * #API_ORIGIN} passes, since the API root and tag groups are generated from all of them.
+   */
+  public static Stream<Pair<String, Ast>> evaluateWithOrigins(
+      PackageName basePackage,
+      OpenApi openApi,
+      OperationFilter filter,
+      int parallelism,
+      Predicate<String> origins) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+    }
+
+    var event = new EvaluateEvent();
+    event.begin();
+    var refResolver = RefResolver.of(openApi);
+    if (parallelism == 1) {
+      var ast =
+          new AstGenerator(basePackage, filter, origins, refResolver, Optional.empty())
+              .evaluate(openApi);
+      event.commit(basePackage, parallelism);
+      return ast;
+    }
+
+    try (var pool = new ForkJoinPool(parallelism)) {
+      var ast =
+          new AstGenerator(basePackage, filter, origins, refResolver, Optional.of(pool))
+              .evaluate(openApi);
+      event.commit(basePackage, parallelism);
+      return ast;
+    }
   }
 
-  private Stream<Ast> evaluate(OpenApi openApi) {
+  private Stream<Pair<String, Ast>> evaluate(OpenApi openApi) {
     return Stream.of(evaluateComponents(openApi), evaluatePaths(openApi)).flatMap(identity());
   }
 
-  private Stream<Ast> evaluateComponents(OpenApi openApi) {
-    return openApi.components().map(Components::schemas).orElse(Map.of()).entrySet().stream()
-        .filter(
+  /**
+   * Apply the function to each item, in parallel if we have a pool, and return the results in the
+   * same order as the items.
+   */
+  private <T, R> List<R> evaluateAll(Collection<T> items, Function<T, R> function) {
+    return pool.map(pool -> pool.submit(() -> items.parallelStream().map(function).toList()).join())
+        .orElseGet(() -> items.stream().map(function).toList());
+  }
+
+  private Stream<Pair<String, Ast>> evaluateComponents(OpenApi openApi) {
+    Predicate<String> isReachable =
+        filter.isFiltering()
+            ? OasReachableSchemas.evaluate(openApi, refResolver, filter)::contains
+            : x -> true;
+    var components =
+        openApi.components().map(Components::schemas).orElse(Map.of()).entrySet().stream()
+            .filter(entry -> isReachable.test(entry.getKey()))
+            .filter(entry -> origins.test("#/components/schemas/" + entry.getKey()))
+            .filter(
+                entry -> {
+                  if (entry.getValue().isEmpty()) {
+                    LOGGER.warn("#/components/schemas/{} has no schema.", entry.getKey());
+                  }
+                  return entry.getValue().isPresent();
+                })
+            .toList();
+    return evaluateAll(
+            components,
             entry -> {
-              if (entry.getValue().isEmpty()) {
-                LOGGER.warn("#/components/schemas/{} has no schema.", entry.getKey());
-              }
-              return entry.getValue().isPresent();
+              var origin = "#/components/schemas/" + entry.getKey();
+              return OasComponentsToAst.evaluate(
+                      basePackage,
+                      refResolver,
+                      SimpleName.of(entry.getKey()),
+                      entry.getValue().get())
+                  .map(ast -> new Pair<>(origin, ast))
+                  .toList();
             })
-        .flatMap(
-            entry ->
-                OasComponentsToAst.evaluate(
-                    basePackage, SimpleName.of(entry.getKey()), entry.getValue().get()));
+        .stream()
+        .flatMap(List::stream);
   }
 
-  private Stream<Ast> evaluatePaths(OpenApi openApi) {
+  private Stream<Pair<String, Ast>> evaluatePaths(OpenApi openApi) {
+    var isApiEvaluated = origins.test(API_ORIGIN);
+    BiPredicate<String, Operation> isEvaluated =
+        (relativePath, operation) ->
+            filter.test(relativePath, operation)
+                && (isApiEvaluated || operation.operationId().map(origins::test).orElse(true));
     var evaluatedPathItems =
-        openApi.paths().entrySet().stream()
-            .flatMap(
+        evaluateAll(
+                openApi.paths().entrySet(),
                 entry -> {
                   var relativePath = entry.getKey();
                   var pathItem = entry.getValue();
-                  return OasPathsToAst.evaluatePathItem(basePackage, relativePath, pathItem);
+                  return OasPathsToAst.evaluatePathItem(
+                          basePackage, refResolver, relativePath, pathItem, isEvaluated)
+                      .toList();
                 })
-            .collect(Collectors.toSet());
+            .stream()
+            .flatMap(List::stream)
+            .toList();
+    if (!isApiEvaluated) {
+      return evaluatedOperations(evaluatedPathItems);
+    }
+
     var taggedOperations =
         OasPathsToAst.evaluateTaggedOperations(basePackage, evaluatedPathItems)
-            .collect(Collectors.toSet());
+            .collect(DistinctByName.toList());
     var api = OasPathsToAst.evaluateApi(basePackage, taggedOperations);
 
     return Stream.of(
-            evaluatedPathItems.stream()
-                .flatMap(result -> result.ast().stream()), // AST for parameter schemas,
-            evaluatedPathItems.stream()
-                .map(result -> result.operation()), // Ast for operation builders,
-            taggedOperations.stream(), // ast for tag groups,
-            Stream.of(api)) // and ast for the API root.
+            evaluatedOperations(evaluatedPathItems).filter(pair -> origins.test(pair.left())),
+            taggedOperations.stream() // ast for tag groups,
+                .map(ast -> new Pair<String, Ast>(API_ORIGIN, ast)),
+            Stream.of(new Pair<String, Ast>(API_ORIGIN, api))) // and ast for the API root.
+        .flatMap(identity());
+  }
+
+  private static Stream<Pair<String, Ast>> evaluatedOperations(
+      List<TagsOperationAndAst> evaluatedPathItems) {
+    return Stream.of(
+            evaluatedPathItems.stream() // AST for parameter schemas,
+                .flatMap(
+                    result ->
+                        result.ast().stream()
+                            .map(ast -> new Pair<String, Ast>(result.operationId(), ast))),
+            evaluatedPathItems.stream() // Ast for operation builders,
+                .map(result -> new Pair<String, Ast>(result.operationId(), result.operation())))
         .flatMap(identity());
   }
 }
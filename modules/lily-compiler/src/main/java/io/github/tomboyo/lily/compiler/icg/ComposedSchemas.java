@@ -0,0 +1,222 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import io.github.tomboyo.lily.compiler.oas.model.ISchema;
+import io.github.tomboyo.lily.compiler.oas.model.Ref;
+import io.github.tomboyo.lily.compiler.oas.model.Schema;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Flattens composed schemas (those with allOf, anyOf, or oneOf keywords) into the properties they
+ * define, and into which of those properties are required, non-nullable, and mandatory.
+ *
+ * <p>Every schema is flattened in a single pass which computes all four at once, and the result is
+ * memoized per schema instance for the lifetime of the document's {@link RefResolver}. $refs within
+ * composition keywords are followed to the referenced component, so a base schema shared by many
+ * composed schemas, or each link of a long chain of $ref'd allOf schemas, is only flattened once.
+ *
+ * <p>Schemas which compose themselves, like A allOf B allOf A, are invalid, so the cycle is cut
+ * where it closes. A schema flattened with a cut to another schema still in progress is incomplete,
+ * so it is not memoized; otherwise, the result for each member of the cycle would depend on which
+ * was flattened first.
+ */
+class ComposedSchemas {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ComposedSchemas.class);
+
+  private static final Flattened EMPTY = new Flattened(Map.of(), Set.of(), Set.of(), Set.of());
+
+  /**
+   * The flattened form of a schema.
+   *
+   * @param properties Properties from the properties keyword and every composed schema.
+   * @param required Names of required properties.
+   * @param nonNullable Names of properties which are not nullable.
+   * @param mandatory Names of properties which are both required and not nullable, and so must be
+   *     present and non-null in every valid instance.
+   */
+  record Flattened(
+      Map<String, ISchema> properties,
+      Set<String> required,
+      Set<String> nonNullable,
+      Set<String> mandatory) {}
+
+  /** Schemas are records, so compare them by identity to avoid hashing entire schema trees. */
+  private record Identity(Schema schema) {
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Identity other && other.schema == schema;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(schema);
+    }
+  }
+
+  /** The state of one call to {@link #flatten(ISchema)}. */
+  private static final class Traversal {
+    /** The schemas in progress, by depth. */
+    private final Map<Identity, Integer> depths = new HashMap<>();
+
+    /** The shallowest depth to which a cycle was cut within the schema in progress. */
+    private int shallowestCut = Integer.MAX_VALUE;
+  }
+
+  private final RefResolver refResolver;
+  private final Map<Identity, Flattened> flattened = new ConcurrentHashMap<>();
+
+  ComposedSchemas(RefResolver refResolver) {
+    this.refResolver = refResolver;
+  }
+
+  /** Flatten the given schema, following $refs. Unresolvable $refs flatten to nothing. */
+  Flattened flatten(ISchema iSchema) {
+    return flatten(iSchema, new Traversal());
+  }
+
+  private Flattened flatten(ISchema iSchema, Traversal traversal) {
+    var schema = resolve(iSchema);
+    if (schema.isEmpty()) {
+      return EMPTY;
+    }
+
+    var key = new Identity(schema.get());
+    var result = flattened.get(key);
+    if (result != null) {
+      return result;
+    }
+
+    var cut = traversal.depths.get(key);
+    if (cut != null) {
+      LOGGER.warn("Ignoring a composed schema which contains itself: {}", iSchema);
+      traversal.shallowestCut = Math.min(traversal.shallowestCut, cut);
+      return EMPTY;
+    }
+
+    var depth = traversal.depths.size();
+    var outer = traversal.shallowestCut;
+    traversal.depths.put(key, depth);
+    traversal.shallowestCut = Integer.MAX_VALUE;
+    result = flattenSchema(schema.get(), traversal);
+    traversal.depths.remove(key);
+    var inner = traversal.shallowestCut;
+    // Cuts to this schema are resolved now that it is complete; cuts to its callers are not.
+    traversal.shallowestCut = Math.min(outer, inner < depth ? inner : Integer.MAX_VALUE);
+    if (inner < depth) {
+      return result;
+    }
+
+    // Threads racing to flatten the same schema compute equal results, so either may win.
+    var previous = flattened.putIfAbsent(key, result);
+    return previous == null ? result : previous;
+  }
+
+  private Optional<Schema> resolve(ISchema iSchema) {
+    return switch (iSchema) {
+      case Schema schema -> Optional.of(schema);
+      case Ref(String $ref) -> refResolver.resolveSchema($ref);
+    };
+  }
+
+  private Flattened flattenSchema(Schema schema, Traversal traversal) {
+    var accumulator = new Accumulator();
+    accumulator.add(schema, traversal);
+
+    /* A property is mandatory if it is both required and non-nullable. Every mandatory property of
+    an allOf component is also both required and non-nullable here, so this intersection covers
+    inline allOf components; only oneOf consensus and $ref'd components add more. */
+    var mandatory = intersection(accumulator.required, accumulator.nonNullable);
+    mandatory.addAll(accumulator.mandatory);
+
+    return new Flattened(
+        Collections.unmodifiableMap(accumulator.properties),
+        Collections.unmodifiableSet(accumulator.required),
+        Collections.unmodifiableSet(accumulator.nonNullable),
+        Collections.unmodifiableSet(mandatory));
+  }
+
+  /**
+   * Collects the flattened form of a schema. Inline allOf components are added to the same
+   * collections as the schema which contains them rather than flattened on their own, so a deeply
+   * nested allOf chain is traversed once instead of copied at every level.
+   */
+  private class Accumulator {
+    private final HashMap<String, ISchema> properties = new HashMap<>();
+    private final HashSet<String> required = new HashSet<>();
+    private final HashSet<String> nonNullable = new HashSet<>();
+    private final HashSet<String> mandatory = new HashSet<>();
+
+    private void add(Schema schema, Traversal traversal) {
+      required.addAll(schema.required());
+      schema
+          .properties()
+          .forEach(
+              (name, property) ->
+                  property.ifPresent(
+                      value -> {
+                        properties.put(name, value);
+                        // TODO: properly handle $refs, where the nullable property is defined on
+                        //  the referent
+                        if (value instanceof Schema s && !s.nullable().orElse(false)) {
+                          nonNullable.add(name);
+                        }
+                      }));
+
+      /* AllOf component properties, required keywords, non-nullable properties, and mandatory
+      properties are all flattened into the composed schema. */
+      for (var component : schema.allOf()) {
+        if (component instanceof Schema inline) {
+          add(inline, traversal);
+        } else {
+          add(flatten(component, traversal));
+        }
+      }
+
+      flattenAll(schema.anyOf(), traversal)
+          .forEach(component -> properties.putAll(component.properties()));
+      // AnyOf schema are inherently optional, so their properties are otherwise irrelevant.
+
+      /* When OneOf components "have consensus," i.e. they agree that a property is required,
+      non-nullable, or mandatory, then that is propagated to the composed schema as well. (One OneOf
+      _must_ validate, so if they all say a property is required, then it's required.) */
+      var oneOf = flattenAll(schema.oneOf(), traversal);
+      oneOf.forEach(component -> properties.putAll(component.properties()));
+      consensus(oneOf, Flattened::required).ifPresent(required::addAll);
+      consensus(oneOf, Flattened::nonNullable).ifPresent(nonNullable::addAll);
+      consensus(oneOf, Flattened::mandatory).ifPresent(mandatory::addAll);
+    }
+
+    private void add(Flattened component) {
+      properties.putAll(component.properties());
+      required.addAll(component.required());
+      nonNullable.addAll(component.nonNullable());
+      mandatory.addAll(component.mandatory());
+    }
+  }
+
+  private List<Flattened> flattenAll(List<ISchema> schemas, Traversal traversal) {
+    return schemas.stream().map(schema -> flatten(schema, traversal)).toList();
+  }
+
+  private static Optional<HashSet<String>> consensus(
+      List<Flattened> components, Function<Flattened, Set<String>> names) {
+    return components.stream().map(names).map(HashSet::new).reduce(ComposedSchemas::intersection);
+  }
+
+  private static <T> HashSet<T> intersection(Collection<T> a, Collection<T> b) {
+    var result = new HashSet<>(a);
+    result.retainAll(b);
+    return result;
+  }
+}
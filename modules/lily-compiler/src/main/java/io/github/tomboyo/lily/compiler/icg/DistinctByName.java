@@ -0,0 +1,48 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import io.github.tomboyo.lily.compiler.ast.Ast;
+import io.github.tomboyo.lily.compiler.ast.Fqn;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collector;
+import org.slf4j.Logger;
+
+/**
+ * Collects AST without duplicates, where two nodes are duplicates if they have the same name.
+ *
+ * <p>A node's name is the Fqn of the type it generates, which is interned, so it identifies the
+ * node with a single cached hash and an identity comparison. Comparing nodes structurally instead
+ * would walk their fields, parameters and nested operations on every insert. Nodes are kept in
+ * encounter order, so output does not depend on hash codes.
+ */
+class DistinctByName {
+
+  private static final Logger LOGGER = getLogger(DistinctByName.class);
+
+  private DistinctByName() {}
+
+  /**
+   * Collect AST to a list in encounter order, keeping only the first node with any given name. If a
+   * later node with the same name differs from the first, it is dropped with a warning, since both
+   * would generate the same source file.
+   */
+  static <T extends Ast> Collector<T, ?, List<T>> toList() {
+    return Collector.of(
+        LinkedHashMap<Fqn, T>::new,
+        DistinctByName::put,
+        (left, right) -> {
+          right.values().forEach(node -> put(left, node));
+          return left;
+        },
+        map -> List.copyOf(map.values()));
+  }
+
+  private static <T extends Ast> void put(LinkedHashMap<Fqn, T> map, T node) {
+    var previous = map.putIfAbsent(node.name(), node);
+    if (previous != null && previous != node && !previous.equals(node)) {
+      LOGGER.warn("Generated conflicting definitions of {}; keeping the first.", node.name());
+    }
+  }
+}
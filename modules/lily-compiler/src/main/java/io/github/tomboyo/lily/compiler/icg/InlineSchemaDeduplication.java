@@ -0,0 +1,211 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toCollection;
+
+import io.github.tomboyo.lily.compiler.ast.Ast;
+import io.github.tomboyo.lily.compiler.ast.AstApi;
+import io.github.tomboyo.lily.compiler.ast.AstClass;
+import io.github.tomboyo.lily.compiler.ast.AstClassAlias;
+import io.github.tomboyo.lily.compiler.ast.AstHeaders;
+import io.github.tomboyo.lily.compiler.ast.AstInterface;
+import io.github.tomboyo.lily.compiler.ast.AstOperation;
+import io.github.tomboyo.lily.compiler.ast.AstResponse;
+import io.github.tomboyo.lily.compiler.ast.AstResponseSum;
+import io.github.tomboyo.lily.compiler.ast.AstTaggedOperations;
+import io.github.tomboyo.lily.compiler.ast.Field;
+import io.github.tomboyo.lily.compiler.ast.Fqn;
+import io.github.tomboyo.lily.compiler.ast.OperationParameter;
+import io.github.tomboyo.lily.compiler.ast.PackageName;
+import io.github.tomboyo.lily.compiler.util.Pair;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Merges structurally identical inline object schemas into one shared type.
+ *
+ * <p>Documents often repeat the same inline object schema, like a request body or the items of an
+ * array, in many places. Each occurrence evaluates to its own AstClass, named after where it
+ * occurs. This pass finds AstClasses with the same fields (names, JSON names, mandatoriness, and
+ * types) and keeps only one of them, then rewrites every reference to the others. The one kept is
+ * the one in the shallowest package, like a type nested in a component rather than in an
+ * operation's request body, and otherwise the one whose name sorts first, so the shared type's name
+ * only depends on the document. Classes nested within merged classes are merged first, so that
+ * their parents can be recognized as identical too.
+ *
+ * <p>Only inline schemas are merged: classes in the base package, which are generated from
+ * component schemas, are always kept, since their names come from the document.
+ */
+public class InlineSchemaDeduplication {
+
+  private static final Comparator<Fqn> CANONICAL_ORDER =
+      Comparator.<Fqn>comparingInt(fqn -> fqn.packageName().components().length)
+          .thenComparing(Fqn::toFqpString);
+
+  private final Map<Fqn, Fqn> replacements = new HashMap<>();
+
+  private InlineSchemaDeduplication() {}
+
+  /** The parts of an AstClass which determine its generated source, except for its name. */
+  private record Shape(List<Field> fields, String docstring, Set<Fqn> interfaces) {}
+
+  /**
+   * Merge identical inline AstClasses.
+   *
+   * @param basePackage The base package, which contains classes generated from component schemas.
+   * @param ast Evaluated AST, each paired with its origin (see {@link
+   *     AstGenerator#evaluateWithOrigins}).
+   * @return The same AST in the same order, less the merged classes, with every reference to a
+   *     merged class replaced by a reference to the class it was merged into.
+   */
+  public static List<Pair<String, Ast>> deduplicate(
+      PackageName basePackage, List<Pair<String, Ast>> ast) {
+    var deduplication = new InlineSchemaDeduplication();
+    var inlineClasses =
+        ast.stream()
+            .map(Pair::right)
+            .filter(node -> node instanceof AstClass)
+            .map(node -> (AstClass) node)
+            .filter(astClass -> !astClass.name().packageName().equals(basePackage))
+            .toList();
+    deduplication.findReplacements(inlineClasses);
+    if (deduplication.replacements.isEmpty()) {
+      return ast;
+    }
+
+    return ast.stream()
+        .filter(pair -> !deduplication.replacements.containsKey(pair.right().name()))
+        .map(pair -> new Pair<>(pair.left(), deduplication.rewrite(pair.right())))
+        .toList();
+  }
+
+  /**
+   * Group classes by shape until no more can be merged. Each round may make more classes identical,
+   * because the classes their fields refer to were merged in the previous round.
+   */
+  private void findReplacements(List<AstClass> inlineClasses) {
+    var merged = true;
+    while (merged) {
+      merged = false;
+      var groups =
+          inlineClasses.stream()
+              .filter(astClass -> !replacements.containsKey(astClass.name()))
+              .collect(groupingBy(this::shapeOf, LinkedHashMap::new, Collectors.toList()));
+      for (var group : groups.values()) {
+        if (group.size() < 2) {
+          continue;
+        }
+        var canonical = group.stream().map(AstClass::name).min(CANONICAL_ORDER).orElseThrow();
+        for (var astClass : group) {
+          if (!astClass.name().equals(canonical)) {
+            replacements.put(astClass.name(), canonical);
+            merged = true;
+          }
+        }
+      }
+    }
+  }
+
+  private Shape shapeOf(AstClass astClass) {
+    return new Shape(
+        astClass.fields().stream().map(this::rewrite).toList(),
+        astClass.docstring(),
+        rewrite(astClass.interfaces()));
+  }
+
+  private Fqn rewrite(Fqn fqn) {
+    var replacement = replacements.get(fqn);
+    if (replacement != null) {
+      // A class may have been merged into a class which was itself merged later.
+      return rewrite(replacement);
+    }
+    if (fqn.typeParameters().isEmpty()) {
+      return fqn;
+    }
+    return Fqn.newBuilder(fqn)
+        .typeParameters(fqn.typeParameters().stream().map(this::rewrite).toList())
+        .build();
+  }
+
+  private LinkedHashSet<Fqn> rewrite(Set<Fqn> fqns) {
+    return fqns.stream().map(this::rewrite).collect(toCollection(LinkedHashSet::new));
+  }
+
+  private Field rewrite(Field field) {
+    return new Field(
+        rewrite(field.astReference()), field.name(), field.jsonName(), field.isMandatory());
+  }
+
+  private OperationParameter rewrite(OperationParameter parameter) {
+    return new OperationParameter(
+        parameter.name(),
+        parameter.apiName(),
+        parameter.location(),
+        parameter.encoding(),
+        rewrite(parameter.typeName()));
+  }
+
+  private AstOperation rewrite(AstOperation operation) {
+    return new AstOperation(
+        operation.operationName(),
+        operation.name(),
+        operation.method(),
+        operation.relativePath(),
+        operation.parameters().stream().map(this::rewrite).toList(),
+        operation.requestBody().map(this::rewrite),
+        rewrite(operation.responseName()));
+  }
+
+  private AstTaggedOperations rewrite(AstTaggedOperations taggedOperations) {
+    return new AstTaggedOperations(
+        taggedOperations.name(),
+        taggedOperations.operations().stream().map(this::rewrite).toList());
+  }
+
+  private Ast rewrite(Ast ast) {
+    return switch (ast) {
+      case AstApi api ->
+          new AstApi(api.name(), api.taggedOperations().stream().map(this::rewrite).toList());
+      case AstClass astClass ->
+          new AstClass(
+              astClass.name(),
+              astClass.fields().stream()
+                  .map(this::rewrite)
+                  .collect(toCollection(LinkedHashSet::new)),
+              astClass.docstring(),
+              rewrite(astClass.interfaces()));
+      case AstClassAlias alias ->
+          new AstClassAlias(
+              alias.name(), rewrite(alias.aliasedType()), rewrite(alias.interfaces()));
+      case AstHeaders headers ->
+          new AstHeaders(headers.name(), headers.fields().stream().map(this::rewrite).toList());
+      case AstInterface astInterface ->
+          new AstInterface(
+              astInterface.name(), astInterface.permits().stream().map(this::rewrite).toList());
+      case AstOperation operation -> rewrite(operation);
+      case AstResponse response ->
+          new AstResponse(
+              response.name(),
+              response.headersName().map(this::rewrite),
+              response.contentName().map(this::rewrite),
+              rewrite(response.sumTypeName()));
+      case AstResponseSum sum ->
+          new AstResponseSum(
+              sum.name(),
+              sum.statusCodeToMember().entrySet().stream()
+                  .collect(
+                      Collectors.toMap(
+                          Map.Entry::getKey,
+                          entry -> rewrite(entry.getValue()),
+                          (a, b) -> a,
+                          LinkedHashMap::new)));
+      case AstTaggedOperations taggedOperations -> rewrite(taggedOperations);
+    };
+  }
+}
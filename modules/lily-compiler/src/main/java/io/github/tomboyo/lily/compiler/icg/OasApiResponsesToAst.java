@@ -21,7 +21,10 @@ import java.util.stream.Stream;
 public class OasApiResponsesToAst {
 
   public static Pair<Fqn, Stream<Ast>> evaluateApiResponses(
-      PackageName basePackage, SimpleName operationId, Responses responses) {
+      PackageName basePackage,
+      RefResolver refResolver,
+      SimpleName operationId,
+      Responses responses) {
     var genRoot = basePackage.resolve(operationId.resolve("operation")); // a.b.getfoooperation
     var responseSumName = Fqn.newBuilder(genRoot, operationId.resolve("Response")).build();
 
@@ -39,7 +42,12 @@ public class OasApiResponsesToAst {
                   var astResponseName = operationId.resolve(statusCode);
                   var evaluated =
                       evaluateApiResponse(
-                          basePackage, genRoot, astResponseName, responseSumName, response);
+                          basePackage,
+                          refResolver,
+                          genRoot,
+                          astResponseName,
+                          responseSumName,
+                          response);
                   return new Triple<>(statusCode, evaluated.left(), evaluated.right());
                 })
             .toList();
@@ -53,31 +61,32 @@ public class OasApiResponsesToAst {
 
   private static Pair<Fqn, Stream<Ast>> evaluateApiResponse(
       PackageName basePackage,
+      RefResolver refResolver,
       PackageName operationPackage,
       SimpleName responseName,
       Fqn sumTypeName,
       IResponse iResponse) {
-    // TODO: handle Refs
     // gen into com.example.myoperation.response
     var responsePackage = operationPackage.resolve("response");
 
-    Optional<Pair<Fqn, Stream<Ast>>> contentFqnAndAst =
+    Optional<Response> responseDef =
         switch (iResponse) {
           case None none -> Optional.empty();
-          // TODO: correctly handle $refs
-          case Ref ref -> Optional.empty();
-          case Response response ->
-              evaluateApiResponseContent(basePackage, responsePackage, responseName, response);
+          case Ref(String $ref) -> refResolver.resolveResponse($ref);
+          case Response response -> Optional.of(response);
         };
 
+    Optional<Pair<Fqn, Stream<Ast>>> contentFqnAndAst =
+        responseDef.flatMap(
+            response ->
+                evaluateApiResponseContent(
+                    basePackage, refResolver, responsePackage, responseName, response));
+
     Optional<Pair<AstHeaders, Stream<Ast>>> astHeadersAndAst =
-        switch (iResponse) {
-          case None none -> Optional.empty();
-          // TODO: correctly handle $refs
-          case Ref ref -> Optional.empty();
-          case Response response ->
-              evaluateApiResponseHeaders(basePackage, responsePackage, responseName, response);
-        };
+        responseDef.flatMap(
+            response ->
+                evaluateApiResponseHeaders(
+                    basePackage, refResolver, responsePackage, responseName, response));
 
     var astResponse =
         new AstResponse(
@@ -98,6 +107,7 @@ public class OasApiResponsesToAst {
 
   private static Optional<Pair<AstHeaders, Stream<Ast>>> evaluateApiResponseHeaders(
       PackageName basePackage,
+      RefResolver refResolver,
       PackageName responsePackage,
       SimpleName responseName,
       Response response) {
@@ -112,28 +122,23 @@ public class OasApiResponsesToAst {
                 entry -> {
                   var name = entry.getKey();
                   var iHeader = entry.getValue();
-                  return switch (iHeader) {
-                    case None none -> Stream.of();
-                    case Ref(String $ref) -> {
-                      var fqn = OasSchemaToAst.fqnForRef(basePackage, $ref);
-                      // TODO: issues/98
-                      yield Stream.of(
-                          new Pair<>(
-                              new Field(fqn, SimpleName.of(name), name, false), Stream.<Ast>of()));
-                    }
-                    case Header header ->
-                        header.schema().stream()
-                            .map(
-                                iSchema ->
-                                    OasSchemaToAst.evaluateInto(
-                                            basePackage,
-                                            headersName.toPackage(),
-                                            SimpleName.of(name).resolve("Header"),
-                                            iSchema)
-                                        .mapLeft(
-                                            fqn ->
-                                                new Field(fqn, SimpleName.of(name), name, false)));
-                  };
+                  var header =
+                      switch (iHeader) {
+                        case None none -> Optional.<Header>empty();
+                        case Ref(String $ref) -> refResolver.resolveHeader($ref);
+                        case Header h -> Optional.of(h);
+                      };
+                  return header.flatMap(Header::schema).stream()
+                      .map(
+                          iSchema ->
+                              OasSchemaToAst.evaluateInto(
+                                      basePackage,
+                                      refResolver,
+                                      headersName.toPackage(),
+                                      SimpleName.of(name).resolve("Header"),
+                                      iSchema)
+                                  .mapLeft(
+                                      fqn -> new Field(fqn, SimpleName.of(name), name, false)));
                 })
             .toList();
 
@@ -145,9 +150,9 @@ public class OasApiResponsesToAst {
 
   private static Optional<Pair<Fqn, Stream<Ast>>> evaluateApiResponseContent(
       PackageName basePackage,
+      RefResolver refResolver,
       PackageName responsePackage,
       SimpleName responseName,
-      // TODO: handle Ref?
       Response responseDef) {
     return responseDef
         .content()
@@ -156,6 +161,10 @@ public class OasApiResponsesToAst {
         .map(
             schema ->
                 OasSchemaToAst.evaluateInto(
-                    basePackage, responsePackage, responseName.resolve("Content"), schema));
+                    basePackage,
+                    refResolver,
+                    responsePackage,
+                    responseName.resolve("Content"),
+                    schema));
   }
 }
@@ -39,14 +39,18 @@ public class OasComponentsToAst {
    * manipulated as a distinct type. This is used to provide semantic domain names to data.
    *
    * @param basePackage Base package under which to generate classes
+   * @param refResolver Resolves $refs against the document's components
    * @param componentName The name of the component to evaluate, which may be used to name resulting
    *     classes
    * @param component The schema of the component
    * @return A stream of AST
    */
   public static Stream<Ast> evaluate(
-      PackageName basePackage, SimpleName componentName, ISchema component) {
-    var fqnAndAst = OasSchemaToAst.evaluate(basePackage, componentName, component);
+      PackageName basePackage,
+      RefResolver refResolver,
+      SimpleName componentName,
+      ISchema component) {
+    var fqnAndAst = OasSchemaToAst.evaluate(basePackage, refResolver, componentName, component);
     return switch (component) {
       // Create a AstClassAlias of a referent type. There are no AST elements.
       case Ref(String $ref) ->
@@ -0,0 +1,170 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static io.github.tomboyo.lily.compiler.icg.AstGenerator.API_ORIGIN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.github.tomboyo.lily.compiler.oas.model.Components;
+import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import io.github.tomboyo.lily.compiler.util.StructuralDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Determines which parts of an OAS document each unit of generated AST depends on, so that a
+ * compilation can re-evaluate only the units whose inputs changed since the last one.
+ *
+ * <p>A unit is everything {@link AstGenerator#evaluateWithOrigins} generates from one origin: a
+ * component schema, an operation (by operationId), or the API root and tag groups ({@link
+ * AstGenerator#API_ORIGIN}). Each unit depends on its own part of the document and on every
+ * component it transitively references by $ref, whether through properties, composition keywords,
+ * parameters, bodies, responses, or headers. Every reference between generated types arises from a
+ * $ref, so this closure also covers the types a unit's AST refers to. The API root and tag groups
+ * depend on the operationIds and tags of every operation, in order.
+ *
+ * <p>A unit's fingerprint hashes all of its inputs. Two compilations of the same Lily build and
+ * base package generate identical sources for units with identical fingerprints.
+ */
+public class OasDependencyGraph {
+
+  private static final String SCHEMAS = "#/components/schemas/";
+
+  /**
+   * One unit of generated AST.
+   *
+   * @param origin The origin of the unit's AST, as in {@link AstGenerator#evaluateWithOrigins}.
+   * @param fingerprint A hex-encoded hash of every input to the unit.
+   * @param dependencies The JSON pointers of every component the unit transitively references.
+   */
+  public record Unit(String origin, String fingerprint, SortedSet<String> dependencies) {}
+
+  private final Map<String, Object> index = new HashMap<>();
+  private final Map<String, OasFingerprint> components = new HashMap<>();
+
+  private OasDependencyGraph(OpenApi openApi) {
+    openApi
+        .components()
+        .ifPresent(
+            components -> {
+              components
+                  .schemas()
+                  .forEach(
+                      (name, schema) ->
+                          schema.ifPresent(s -> index.put(SCHEMAS + RefResolver.escape(name), s)));
+              put("#/components/parameters/", components.parameters());
+              put("#/components/requestBodies/", components.requestBodies());
+              put("#/components/responses/", components.responses());
+              put("#/components/headers/", components.headers());
+            });
+  }
+
+  private void put(String prefix, Map<String, ?> components) {
+    components.forEach(
+        (name, component) -> index.put(prefix + RefResolver.escape(name), component));
+  }
+
+  /**
+   * Get every unit which {@link AstGenerator#evaluateWithOrigins} evaluates for the given document
+   * and filter, by origin, or an empty optional if the document can not be divided into units
+   * (because an operation has no operationId).
+   */
+  public static Optional<Map<String, Unit>> evaluate(OpenApi openApi, OperationFilter filter) {
+    return new OasDependencyGraph(openApi).units(openApi, filter);
+  }
+
+  private Optional<Map<String, Unit>> units(OpenApi openApi, OperationFilter filter) {
+    var units = new LinkedHashMap<String, Unit>();
+
+    Predicate<String> isReachable =
+        filter.isFiltering()
+            ? OasReachableSchemas.evaluate(openApi, RefResolver.of(openApi), filter)::contains
+            : x -> true;
+    openApi
+        .components()
+        .map(Components::schemas)
+        .orElse(Map.of())
+        .forEach(
+            (name, schema) -> {
+              if (schema.isPresent() && isReachable.test(name)) {
+                var origin = SCHEMAS + name;
+                units.put(origin, unit(origin, OasFingerprint.of(name, schema.get())));
+              }
+            });
+
+    // Operations sharing an operationId generate AST with the same origin, so they are one unit.
+    var operations = new LinkedHashMap<String, List<Object>>();
+    var summary = new ArrayList<Object>();
+    for (var pathEntry : openApi.paths().entrySet()) {
+      var relativePath = pathEntry.getKey();
+      var pathItem = pathEntry.getValue();
+      for (var entry : pathItem.operationsMap().entrySet()) {
+        var operation = entry.getValue();
+        if (!filter.test(relativePath, operation)) {
+          continue;
+        }
+        if (operation.operationId().isEmpty()) {
+          return Optional.empty();
+        }
+        var operationId = operation.operationId().get();
+        operations
+            .computeIfAbsent(operationId, id -> new ArrayList<>())
+            .addAll(List.of(relativePath, entry.getKey(), pathItem.parameters(), operation));
+        summary.add(List.of(operationId, operation.tags()));
+      }
+    }
+    operations.forEach(
+        (operationId, inputs) ->
+            units.put(operationId, unit(operationId, OasFingerprint.of(inputs.toArray()))));
+    units.put(API_ORIGIN, unit(API_ORIGIN, OasFingerprint.of(API_ORIGIN, summary)));
+
+    return Optional.of(Collections.unmodifiableMap(units));
+  }
+
+  private Unit unit(String origin, OasFingerprint own) {
+    var dependencies = closure(own);
+    var digest = StructuralDigest.sha256();
+    digest.update(own.hash());
+    for (var pointer : dependencies) {
+      digest.update(pointer.getBytes(UTF_8));
+      digest.update((byte) 0);
+      var component = component(pointer);
+      digest.update(component.isPresent() ? component.get().hash() : new byte[] {0});
+    }
+    return new Unit(
+        origin,
+        HexFormat.of().formatHex(digest.digest()),
+        Collections.unmodifiableSortedSet(dependencies));
+  }
+
+  /** Get the pointers of every component transitively referenced by the given model. */
+  private TreeSet<String> closure(OasFingerprint own) {
+    var dependencies = new TreeSet<String>();
+    var pending = new ArrayDeque<>(own.refs());
+    while (!pending.isEmpty()) {
+      var pointer = pending.pop();
+      if (dependencies.add(pointer)) {
+        component(pointer).ifPresent(component -> pending.addAll(component.refs()));
+      }
+    }
+    return dependencies;
+  }
+
+  /** Fingerprint the component at the given pointer, if there is one. */
+  private Optional<OasFingerprint> component(String pointer) {
+    var fingerprint = components.get(pointer);
+    if (fingerprint == null && index.containsKey(pointer)) {
+      fingerprint = OasFingerprint.of(index.get(pointer));
+      components.put(pointer, fingerprint);
+    }
+    return Optional.ofNullable(fingerprint);
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import io.github.tomboyo.lily.compiler.oas.model.None;
+import io.github.tomboyo.lily.compiler.oas.model.OMap;
+import io.github.tomboyo.lily.compiler.oas.model.Ref;
+import io.github.tomboyo.lily.compiler.util.StructuralDigest;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A SHA-256 hash of part of an OAS document model, and the $refs within it.
+ *
+ * <p>The model is hashed structurally (see {@link StructuralDigest}). $refs are hashed as strings
+ * and not followed; callers combine the fingerprints of referenced components themselves.
+ *
+ * @param hash The SHA-256 hash of the model.
+ * @param refs Every $ref within the model, in encounter order.
+ */
+record OasFingerprint(byte[] hash, Set<String> refs) {
+
+  /** Fingerprint the given model objects, in order, as one. */
+  static OasFingerprint of(Object... models) {
+    var refs = new LinkedHashSet<String>();
+    var digest =
+        new StructuralDigest(
+            (model, d) ->
+                switch (model) {
+                  case Ref(String $ref) -> {
+                    d.tag('$').string($ref);
+                    refs.add($ref);
+                    yield true;
+                  }
+                  case None none -> {
+                    d.tag('N');
+                    yield true;
+                  }
+                  case OMap<?, ?> map -> {
+                    d.walk(map.asMap());
+                    yield true;
+                  }
+                  default -> false;
+                });
+    for (var model : models) {
+      digest.walk(model);
+    }
+    return new OasFingerprint(digest.digest(), refs);
+  }
+}
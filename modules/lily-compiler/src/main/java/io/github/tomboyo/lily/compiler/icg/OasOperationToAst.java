@@ -8,6 +8,7 @@ import io.github.tomboyo.lily.compiler.ast.AstOperation;
 import io.github.tomboyo.lily.compiler.ast.Fqn;
 import io.github.tomboyo.lily.compiler.ast.PackageName;
 import io.github.tomboyo.lily.compiler.ast.SimpleName;
+import io.github.tomboyo.lily.compiler.jfr.OperationEvent;
 import io.github.tomboyo.lily.compiler.oas.model.*;
 import io.github.tomboyo.lily.compiler.util.Pair;
 import java.util.*;
@@ -17,15 +18,18 @@ import java.util.stream.Stream;
 public class OasOperationToAst {
 
   private final PackageName basePackage;
+  private final RefResolver refResolver;
 
-  private OasOperationToAst(PackageName basePackage) {
+  private OasOperationToAst(PackageName basePackage, RefResolver refResolver) {
     this.basePackage = basePackage;
+    this.refResolver = refResolver;
   }
 
   /**
    * Evaluate an OAS Operation to AST.
    *
    * @param basePackage The root package name for all generated types.
+   * @param refResolver Resolves $refs against the document's components.
    * @param relativePath The relative URL of the Operation.
    * @param operation The operation to evaluate.
    * @param inheritedParameters All OpenAPI parameters inherited from the parent Path Item.
@@ -33,12 +37,18 @@ public class OasOperationToAst {
    */
   public static TagsOperationAndAst evaluateOperaton(
       PackageName basePackage,
+      RefResolver refResolver,
       String relativePath,
       String method,
       Operation operation,
       List<IParameter> inheritedParameters) {
-    return new OasOperationToAst(basePackage)
-        .evaluateOperation(relativePath, method, operation, inheritedParameters);
+    var event = new OperationEvent();
+    event.begin();
+    var result =
+        new OasOperationToAst(basePackage, refResolver)
+            .evaluateOperation(relativePath, method, operation, inheritedParameters);
+    event.commit(relativePath, method, operation.operationId().orElse(null));
+    return result;
   }
 
   private TagsOperationAndAst evaluateOperation(
@@ -57,7 +67,7 @@ public class OasOperationToAst {
             .map(
                 parameter ->
                     OasParameterToAst.evaluateParameter(
-                        basePackage, subordinatePackageName, parameter))
+                        basePackage, refResolver, subordinatePackageName, parameter))
             .flatMap(Optional::stream)
             .toList();
     var parameterAst = parametersAndAst.stream().flatMap(OasParameterToAst.ParameterAndAst::ast);
@@ -71,11 +81,15 @@ public class OasOperationToAst {
     var responseSumAndAst =
         OasApiResponsesToAst.evaluateApiResponses(
             // TODO: just deser Responses to an empty instance
-            basePackage, operationId, operation.responses().orElse(new Responses(Map.of())));
+            basePackage,
+            refResolver,
+            operationId,
+            operation.responses().orElse(new Responses(Map.of())));
 
     return new TagsOperationAndAst(
         // TODO: does this need to be mutable?
         new HashSet<>(operation.tags()),
+        operation.operationId().orElseThrow(),
         new AstOperation(
             // TODO: ignore operation if ID is missing rather than throw
             SimpleName.of(operation.operationId().orElseThrow()),
@@ -87,7 +101,7 @@ public class OasOperationToAst {
             responseSumAndAst.left()),
         Stream.of(responseSumAndAst.right(), bodyAndAst.right(), parameterAst)
             .flatMap(identity())
-            .collect(Collectors.toSet()));
+            .collect(DistinctByName.toList()));
   }
 
   private Pair<Optional<Fqn>, Stream<Ast>> evaluateRequestBody(
@@ -95,27 +109,35 @@ public class OasOperationToAst {
 
     return operation
         .requestBody()
-        // TODO: handle RequestBody.Ref
-        .filter(RequestBody.class::isInstance)
-        .map(RequestBody.class::cast)
+        .flatMap(
+            iRequestBody ->
+                switch (iRequestBody) {
+                  case None none -> Optional.<RequestBody>empty();
+                  case Ref(String $ref) -> refResolver.resolveRequestBody($ref);
+                  case RequestBody requestBody -> Optional.of(requestBody);
+                })
         .map(RequestBody::content)
         .map(map -> map.get("application/json"))
         .flatMap(MediaType::schema)
         .map(
             schema ->
                 OasSchemaToAst.evaluateInto(
-                    basePackage, genRoot, operationId.resolve("Body"), schema))
+                    basePackage, refResolver, genRoot, operationId.resolve("Body"), schema))
         .map(pair -> new Pair<>(Optional.of(pair.left()), pair.right()))
         .orElse(new Pair<>(Optional.empty(), Stream.empty()));
   }
 
   /** Merge owned parameters with inherited parameters. Owned parameters take precedence. */
-  private static Collection<IParameter> mergeParameters(
+  private Collection<IParameter> mergeParameters(
       List<IParameter> inherited, List<IParameter> owned) {
     return Stream.concat(inherited.stream(), owned.stream())
-        // TODO: handle Parameters.Ref instances
-        .filter(Parameter.class::isInstance)
-        .map(x -> (Parameter) x)
+        .flatMap(
+            iParameter ->
+                switch (iParameter) {
+                  case None none -> Stream.<Parameter>of();
+                  case Ref(String $ref) -> refResolver.resolveParameter($ref).stream();
+                  case Parameter parameter -> Stream.of(parameter);
+                })
         .filter(x -> x.name().isPresent() && x.in().isPresent())
         .collect(
             toMap(
@@ -125,8 +147,9 @@ public class OasOperationToAst {
         .values();
   }
 
-  /** Holds the tags, AstOperation, and other Ast from evaluating an OAS Operation. */
-  public record TagsOperationAndAst(Set<String> tags, AstOperation operation, Set<Ast> ast) {}
+  /** Holds the tags, operationId, AstOperation, and other Ast from evaluating an OAS Operation. */
+  public record TagsOperationAndAst(
+      Set<String> tags, String operationId, AstOperation operation, List<Ast> ast) {}
 
   private record ParameterId(String name, String in) {}
 }
@@ -19,17 +19,22 @@ import java.util.stream.Stream;
 public class OasParameterToAst {
 
   public static Optional<ParameterAndAst> evaluateParameter(
-      PackageName basePackage, PackageName genRoot, IParameter iParameter) {
+      PackageName basePackage,
+      RefResolver refResolver,
+      PackageName genRoot,
+      IParameter iParameter) {
     return switch (iParameter) {
       case None none -> Optional.empty();
-      // TODO: handle Ref correctly
-      case Ref ref -> Optional.empty();
-      case Parameter parameter -> evaluateSchema(basePackage, genRoot, parameter);
+      case Ref(String $ref) ->
+          refResolver
+              .resolveParameter($ref)
+              .flatMap(parameter -> evaluateSchema(basePackage, refResolver, genRoot, parameter));
+      case Parameter parameter -> evaluateSchema(basePackage, refResolver, genRoot, parameter);
     };
   }
 
   private static Optional<ParameterAndAst> evaluateSchema(
-      PackageName basePackage, PackageName genRoot, Parameter parameter) {
+      PackageName basePackage, RefResolver refResolver, PackageName genRoot, Parameter parameter) {
 
     if (parameter.schema().isEmpty()) {
       return Optional.empty();
@@ -39,6 +44,7 @@ public class OasParameterToAst {
     var parameterRefAndAst =
         OasSchemaToAst.evaluateInto(
             basePackage,
+            refResolver,
             genRoot,
             SimpleName.of(parameter.name().orElseThrow()),
             parameter.schema().get());
@@ -3,7 +3,6 @@ package io.github.tomboyo.lily.compiler.icg;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.mapping;
-import static java.util.stream.Collectors.toSet;
 
 import io.github.tomboyo.lily.compiler.ast.AstApi;
 import io.github.tomboyo.lily.compiler.ast.AstTaggedOperations;
@@ -11,10 +10,13 @@ import io.github.tomboyo.lily.compiler.ast.Fqn;
 import io.github.tomboyo.lily.compiler.ast.PackageName;
 import io.github.tomboyo.lily.compiler.ast.SimpleName;
 import io.github.tomboyo.lily.compiler.icg.OasOperationToAst.TagsOperationAndAst;
+import io.github.tomboyo.lily.compiler.oas.model.Operation;
 import io.github.tomboyo.lily.compiler.oas.model.PathItem;
 import io.github.tomboyo.lily.compiler.util.Pair;
 import java.util.Collection;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
 public class OasPathsToAst {
@@ -30,7 +32,7 @@ public class OasPathsToAst {
    * Collection)}, return an AstApi over those operations.
    */
   public static AstApi evaluateApi(
-      PackageName basePackage, Set<AstTaggedOperations> taggedOperations) {
+      PackageName basePackage, List<AstTaggedOperations> taggedOperations) {
     return new AstApi(
         Fqn.newBuilder().packageName(basePackage).typeName(SimpleName.of("Api")).build(),
         taggedOperations);
@@ -47,8 +49,37 @@ public class OasPathsToAst {
 
   /** Evaluate a single PathItem (and its operations, nested schemas, etc) to AST. */
   public static Stream<TagsOperationAndAst> evaluatePathItem(
-      PackageName basePackage, String relativePath, PathItem pathItem) {
-    return new OasPathsToAst(basePackage).evaluatePathItem(relativePath, pathItem);
+      PackageName basePackage, RefResolver refResolver, String relativePath, PathItem pathItem) {
+    return evaluatePathItem(
+        basePackage, refResolver, relativePath, pathItem, OperationFilter.all());
+  }
+
+  /**
+   * Evaluate the operations of a single PathItem which pass the given filter to AST. Operations
+   * which do not pass the filter are not evaluated at all.
+   */
+  public static Stream<TagsOperationAndAst> evaluatePathItem(
+      PackageName basePackage,
+      RefResolver refResolver,
+      String relativePath,
+      PathItem pathItem,
+      OperationFilter filter) {
+    return evaluatePathItem(basePackage, refResolver, relativePath, pathItem, filter::test);
+  }
+
+  /**
+   * Evaluate the operations of a single PathItem which pass the given predicate to AST. The
+   * predicate is given the relative path and each operation. Operations which do not pass the
+   * predicate are not evaluated at all.
+   */
+  public static Stream<TagsOperationAndAst> evaluatePathItem(
+      PackageName basePackage,
+      RefResolver refResolver,
+      String relativePath,
+      PathItem pathItem,
+      BiPredicate<String, Operation> filter) {
+    return new OasPathsToAst(basePackage)
+        .evaluatePathItem(refResolver, relativePath, pathItem, filter);
   }
 
   private Stream<AstTaggedOperations> evaluateTaggedOperations(
@@ -56,19 +87,21 @@ public class OasPathsToAst {
     var everyOperation =
         new AstTaggedOperations(
             Fqn.newBuilder().packageName(basePackage).typeName("EveryOperation").build(),
-            results.stream().map(TagsOperationAndAst::operation).collect(toSet()));
+            results.stream().map(TagsOperationAndAst::operation).collect(DistinctByName.toList()));
     var everyUntaggedOperation =
         new AstTaggedOperations(
             Fqn.newBuilder().packageName(basePackage).typeName("EveryUntaggedOperation").build(),
             results.stream()
                 .filter(x -> x.tags().isEmpty())
                 .map(TagsOperationAndAst::operation)
-                .collect(toSet()));
+                .collect(DistinctByName.toList()));
     var taggedOperations =
         results.stream()
             .flatMap(
                 result -> result.tags().stream().map(tag -> new Pair<>(tag, result.operation())))
-            .collect(groupingBy(Pair::left, mapping(Pair::right, toSet())))
+            .collect(
+                groupingBy(
+                    Pair::left, LinkedHashMap::new, mapping(Pair::right, DistinctByName.toList())))
             .entrySet()
             .stream()
             .map(
@@ -83,16 +116,21 @@ public class OasPathsToAst {
         .flatMap(identity());
   }
 
-  private Stream<TagsOperationAndAst> evaluatePathItem(String relativePath, PathItem pathItem) {
+  private Stream<TagsOperationAndAst> evaluatePathItem(
+      RefResolver refResolver,
+      String relativePath,
+      PathItem pathItem,
+      BiPredicate<String, Operation> filter) {
     var inheritedParameters = pathItem.parameters();
 
     return pathItem.operationsMap().entrySet().stream()
+        .filter(entry -> filter.test(relativePath, entry.getValue()))
         .map(
             entry -> {
               var method = entry.getKey();
               var operation = entry.getValue();
               return OasOperationToAst.evaluateOperaton(
-                  basePackage, relativePath, method, operation, inheritedParameters);
+                  basePackage, refResolver, relativePath, method, operation, inheritedParameters);
             });
   }
 }
@@ -0,0 +1,151 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static java.util.function.Function.identity;
+
+import io.github.tomboyo.lily.compiler.oas.model.Components;
+import io.github.tomboyo.lily.compiler.oas.model.Header;
+import io.github.tomboyo.lily.compiler.oas.model.IHeader;
+import io.github.tomboyo.lily.compiler.oas.model.IParameter;
+import io.github.tomboyo.lily.compiler.oas.model.IRequestBody;
+import io.github.tomboyo.lily.compiler.oas.model.IResponse;
+import io.github.tomboyo.lily.compiler.oas.model.ISchema;
+import io.github.tomboyo.lily.compiler.oas.model.MediaType;
+import io.github.tomboyo.lily.compiler.oas.model.None;
+import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import io.github.tomboyo.lily.compiler.oas.model.Operation;
+import io.github.tomboyo.lily.compiler.oas.model.Parameter;
+import io.github.tomboyo.lily.compiler.oas.model.Ref;
+import io.github.tomboyo.lily.compiler.oas.model.RequestBody;
+import io.github.tomboyo.lily.compiler.oas.model.Response;
+import io.github.tomboyo.lily.compiler.oas.model.Responses;
+import io.github.tomboyo.lily.compiler.oas.model.Schema;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Determines which {@code #/components/schemas} are reachable via {@code $ref} from the operations
+ * selected by an {@link OperationFilter}, so that unused components need not be generated.
+ */
+public class OasReachableSchemas {
+
+  private static final String SCHEMAS_PREFIX = "#/components/schemas/";
+
+  private final Map<String, Optional<ISchema>> components;
+  private final RefResolver refResolver;
+
+  private OasReachableSchemas(Map<String, Optional<ISchema>> components, RefResolver refResolver) {
+    this.components = components;
+    this.refResolver = refResolver;
+  }
+
+  /**
+   * Get the names of the component schemas which are transitively referenced by the operations
+   * which pass the given filter. Refs to other components, like parameters, are followed too.
+   */
+  public static Set<String> evaluate(
+      OpenApi openApi, RefResolver refResolver, OperationFilter filter) {
+    return new OasReachableSchemas(
+            openApi.components().map(Components::schemas).orElse(Map.of()), refResolver)
+        .reachableFrom(openApi, filter);
+  }
+
+  private Set<String> reachableFrom(OpenApi openApi, OperationFilter filter) {
+    var pending = new ArrayDeque<String>();
+    openApi
+        .paths()
+        .forEach(
+            (relativePath, pathItem) ->
+                pathItem.operationsMap().values().stream()
+                    .filter(operation -> filter.test(relativePath, operation))
+                    .forEach(
+                        operation -> {
+                          pathItem.parameters().stream().flatMap(this::refs).forEach(pending::add);
+                          refs(operation).forEach(pending::add);
+                        }));
+
+    var reachable = new HashSet<String>();
+    while (!pending.isEmpty()) {
+      var $ref = pending.pop();
+      if (!$ref.startsWith(SCHEMAS_PREFIX)) {
+        continue;
+      }
+
+      var name = $ref.substring(SCHEMAS_PREFIX.length());
+      if (reachable.add(name)) {
+        components.getOrDefault(name, Optional.empty()).stream()
+            .flatMap(this::refs)
+            .forEach(pending::add);
+      }
+    }
+    return reachable;
+  }
+
+  private Stream<String> refs(Operation operation) {
+    return Stream.of(
+            operation.parameters().stream().flatMap(this::refs),
+            operation.requestBody().stream().flatMap(this::refs),
+            operation.responses().map(Responses::responseMap).orElse(Map.of()).values().stream()
+                .flatMap(this::refs))
+        .flatMap(identity());
+  }
+
+  private Stream<String> refs(IParameter iParameter) {
+    return switch (iParameter) {
+      case None none -> Stream.of();
+      case Ref(String $ref) -> refResolver.resolveParameter($ref).stream().flatMap(this::refs);
+      case Parameter parameter -> parameter.schema().stream().flatMap(this::refs);
+    };
+  }
+
+  private Stream<String> refs(IRequestBody iRequestBody) {
+    return switch (iRequestBody) {
+      case None none -> Stream.of();
+      case Ref(String $ref) -> refResolver.resolveRequestBody($ref).stream().flatMap(this::refs);
+      case RequestBody requestBody ->
+          requestBody.content().values().stream()
+              .flatMap(mediaType -> mediaType.schema().stream())
+              .flatMap(this::refs);
+    };
+  }
+
+  private Stream<String> refs(IResponse iResponse) {
+    return switch (iResponse) {
+      case None none -> Stream.of();
+      case Ref(String $ref) -> refResolver.resolveResponse($ref).stream().flatMap(this::refs);
+      case Response response ->
+          Stream.concat(
+              // Only JSON content is generated; see OasApiResponsesToAst.
+              response.content().get("application/json").flatMap(MediaType::schema).stream()
+                  .flatMap(this::refs),
+              response.headers().values().stream().flatMap(this::refs));
+    };
+  }
+
+  private Stream<String> refs(IHeader iHeader) {
+    return switch (iHeader) {
+      case None none -> Stream.of();
+      case Ref(String $ref) -> refResolver.resolveHeader($ref).stream().flatMap(this::refs);
+      case Header header -> header.schema().stream().flatMap(this::refs);
+    };
+  }
+
+  private Stream<String> refs(ISchema iSchema) {
+    return switch (iSchema) {
+      case Ref(String $ref) -> Stream.of($ref);
+      case Schema schema ->
+          Stream.of(
+                  schema.properties().values().stream().flatMap(Optional::stream),
+                  schema.items().stream(),
+                  schema.allOf().stream(),
+                  schema.anyOf().stream(),
+                  schema.oneOf().stream(),
+                  schema.not().stream())
+              .flatMap(identity())
+              .flatMap(this::refs);
+    };
+  }
+}
@@ -1,8 +1,6 @@
 package io.github.tomboyo.lily.compiler.icg;
 
-import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 
 import io.github.tomboyo.lily.compiler.ast.Ast;
 import io.github.tomboyo.lily.compiler.ast.AstClass;
@@ -10,17 +8,12 @@ import io.github.tomboyo.lily.compiler.ast.Field;
 import io.github.tomboyo.lily.compiler.ast.Fqn;
 import io.github.tomboyo.lily.compiler.ast.PackageName;
 import io.github.tomboyo.lily.compiler.ast.SimpleName;
+import io.github.tomboyo.lily.compiler.jfr.SchemaEvent;
 import io.github.tomboyo.lily.compiler.oas.model.ISchema;
 import io.github.tomboyo.lily.compiler.oas.model.Ref;
 import io.github.tomboyo.lily.compiler.oas.model.Schema;
 import io.github.tomboyo.lily.compiler.util.Pair;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,9 +23,11 @@ public class OasSchemaToAst {
   private static final Logger LOGGER = LoggerFactory.getLogger(OasSchemaToAst.class);
 
   private final PackageName basePackage;
+  private final RefResolver refResolver;
 
-  private OasSchemaToAst(PackageName basePackage) {
+  private OasSchemaToAst(PackageName basePackage, RefResolver refResolver) {
     this.basePackage = basePackage;
+    this.refResolver = refResolver;
   }
 
   /**
@@ -40,13 +35,19 @@ public class OasSchemaToAst {
    * schema.
    *
    * @param basePackage The root package under which to generate new types.
+   * @param refResolver Resolves $refs against the document's components.
    * @param name The name of the type to generate.
    * @param iSchema The schema to evaluate to AST.
    * @return A pair describing the root reference and stream of evaluated AST.
    */
   public static Pair<Fqn, Stream<Ast>> evaluate(
-      PackageName basePackage, SimpleName name, ISchema iSchema) {
-    return new OasSchemaToAst(basePackage).evaluateSchema(basePackage, name, iSchema);
+      PackageName basePackage, RefResolver refResolver, SimpleName name, ISchema iSchema) {
+    var event = new SchemaEvent();
+    event.begin();
+    var result =
+        new OasSchemaToAst(basePackage, refResolver).evaluateSchema(basePackage, name, iSchema);
+    event.commit(result.left());
+    return result;
   }
 
   /**
@@ -54,6 +55,7 @@ public class OasSchemaToAst {
    * schema.
    *
    * @param basePackage The package containing all "top level" types ever generated.
+   * @param refResolver Resolves $refs against the document's components.
    * @param genRoot The package to contain all types generated for this schema or nested packages of
    *     generated types.
    * @param name The name of the type to generate.
@@ -61,20 +63,16 @@ public class OasSchemaToAst {
    * @return A pair describing the root reference and stream of evaluated AST.
    */
   public static Pair<Fqn, Stream<Ast>> evaluateInto(
-      PackageName basePackage, PackageName genRoot, SimpleName name, ISchema schema) {
-    return new OasSchemaToAst(basePackage).evaluateSchema(genRoot, name, schema);
-  }
-
-  /**
-   * Return the FQN of a shared component with the given $ref name. If and when the component is
-   * generated, the Fqn will point to the generated type.
-   *
-   * @param basePackage The package containing all "top level" generated types.
-   * @param ref The name of the shared component, like '#/components/schemas'
-   * @return The Fqn.
-   */
-  public static Fqn fqnForRef(PackageName basePackage, String ref) {
-    return new OasSchemaToAst(basePackage).toBasePackageClassReference(ref);
+      PackageName basePackage,
+      RefResolver refResolver,
+      PackageName genRoot,
+      SimpleName name,
+      ISchema schema) {
+    var event = new SchemaEvent();
+    event.begin();
+    var result = new OasSchemaToAst(basePackage, refResolver).evaluateSchema(genRoot, name, schema);
+    event.commit(result.left());
+    return result;
   }
 
   private Pair<Fqn, Stream<Ast>> evaluateSchema(
@@ -102,10 +100,7 @@ public class OasSchemaToAst {
   }
 
   private Fqn toBasePackageClassReference(String $ref) {
-    return Fqn.newBuilder()
-        .packageName(basePackage)
-        .typeName($ref.replaceFirst("^#/components/schemas/", ""))
-        .build();
+    return Fqn.newBuilder().packageName(basePackage).typeName(refResolver.schemaName($ref)).build();
   }
 
   private Fqn toStdLibFqn(String type, Optional<String> format) {
@@ -193,8 +188,9 @@ public class OasSchemaToAst {
 
   private Pair<Fqn, Stream<Ast>> evaluateObject(
       PackageName currentPackage, SimpleName name, Schema schema) {
-    var properties = getProperties(schema);
-    var mandatoryPropertyNames = getMandatoryPropertyNames(schema);
+    var flattened = refResolver.composedSchemas().flatten(schema);
+    var properties = flattened.properties();
+    var mandatoryPropertyNames = flattened.mandatory();
     var interiorPackage = currentPackage.resolve(name.toString());
 
     /*
@@ -233,120 +229,4 @@ public class OasSchemaToAst {
         Fqn.newBuilder().packageName(currentPackage).typeName(name).build(),
         Stream.concat(Stream.of(exteriorClass), interiorAst));
   }
-
-  /* Gets properties from both properties keywords and composed schema */
-  private Map<String, ISchema> getProperties(ISchema iSchema) {
-    // TODO: is this correct handling of $ref?
-    if (iSchema instanceof Schema schema) {
-      var properties =
-          schema.properties().entrySet().stream()
-              .filter(entry -> entry.getValue().isPresent())
-              .collect(
-                  collectingAndThen(
-                      toMap(Map.Entry::getKey, entry -> entry.getValue().get()), HashMap::new));
-
-      if (schema.isComposed()) {
-        Stream.of(schema.allOf(), schema.anyOf(), schema.oneOf())
-            .flatMap(List::stream)
-            .forEach(s -> properties.putAll(getProperties(s)));
-      }
-
-      return properties;
-    } else {
-      return Map.of();
-    }
-  }
-
-  private Set<String> getMandatoryPropertyNames(ISchema iSchema) {
-    if (iSchema instanceof Schema schema) {
-      var required = requiredPropertyNames(schema);
-      var nonNullable = getNonNullablePropertyNames(schema);
-      var mandatory = intersection(required, nonNullable);
-
-      if (schema.isComposed()) {
-        /* If all the oneOf schema (one of which MUST validate) agree that a given property is mandatory, then it is
-        mandatory on the composed schema as well. */
-        schema.oneOf().stream()
-            .map(this::getMandatoryPropertyNames)
-            .reduce(this::intersection)
-            .ifPresent(mandatory::addAll);
-
-        /* If a property is mandatory according to an allOf component, then it is mandatory according to the composed
-        schema as well. */
-        schema.allOf().stream().map(this::getMandatoryPropertyNames).forEach(mandatory::addAll);
-      }
-
-      return mandatory;
-    } else {
-      return Set.of();
-    }
-  }
-
-  private Set<String> requiredPropertyNames(ISchema iSchema) {
-    // TODO: review $ref/None handling
-    if (iSchema instanceof Schema schema) {
-      var required = new HashSet<>(schema.required());
-
-      if (schema.isComposed()) {
-        /* AllOf component required keywords are flattened into the composed schema. */
-        schema.allOf().stream()
-            .map(this::requiredPropertyNames)
-            .flatMap(Set::stream)
-            .forEach(required::add);
-
-        /* When OneOf components "have consensus," i.e. they agree that a property is required, then that requirement is
-        propagated to the composed schema as well. (One OneOf _must_ validate, so if they all say a property is required,
-        then it's required.) */
-        schema.oneOf().stream()
-            .map(this::requiredPropertyNames)
-            .reduce(this::intersection)
-            .ifPresent(required::addAll);
-      }
-
-      return required;
-    } else {
-      return Set.of();
-    }
-  }
-
-  private Set<String> getNonNullablePropertyNames(ISchema iSchema) {
-    // TODO: properly handle $refs, where the nullable property is defined on the referent
-    if (iSchema instanceof Schema schema) {
-      var result = new HashSet<String>();
-
-      schema.getProperties().entrySet().stream()
-          // TODO: properly handle $refs, where the nullable property is defined on the referent
-          .filter(entry -> entry.getValue() instanceof Schema s && !s.nullable().orElse(false))
-          .map(Map.Entry::getKey)
-          .forEach(result::add);
-
-      if (schema.isComposed()) {
-        // When an allOf property is not nullable, then it's not nullable on the composed schema
-        // either
-        schema.allOf().stream()
-            .map(this::getNonNullablePropertyNames)
-            .flatMap(Set::stream)
-            .forEach(result::add);
-
-        /* If every oneOf schema agrees that a property is not nullable ("consensus"), then it's not nullable on the
-        composed schema either. */
-        schema.oneOf().stream()
-            .map(this::getNonNullablePropertyNames)
-            .reduce(this::intersection)
-            .ifPresent(result::addAll);
-      }
-
-      // AnyOf schema are inherently optional, so their properties are irrelevant.
-
-      return result;
-    } else {
-      return Set.of();
-    }
-  }
-
-  private <T> HashSet<T> intersection(Collection<T> a, Collection<T> b) {
-    var result = new HashSet<>(a);
-    result.retainAll(b);
-    return result;
-  }
 }
@@ -0,0 +1,176 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static java.util.Objects.requireNonNull;
+
+import io.github.tomboyo.lily.compiler.oas.model.Operation;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Selects which OAS operations to generate code for.
+ *
+ * <p>An operation is included if there are no include criteria, or if it matches any include
+ * criterion: it has an included tag, an included operationId, or a path matching an included glob.
+ * An included operation is then excluded if it matches any exclude criterion in the same way.
+ *
+ * <p>Path globs match relative OAS paths like {@code /pets/{id}}. A {@code *} matches any
+ * characters within a single path segment, {@code **} matches any characters including {@code /},
+ * and {@code ?} matches any single character other than {@code /}. Globs are compiled once, when
+ * the filter is built.
+ *
+ * @param includeTags Include operations with any of these tags.
+ * @param excludeTags Exclude operations with any of these tags.
+ * @param includeOperationIds Include operations with any of these operationIds.
+ * @param excludeOperationIds Exclude operations with any of these operationIds.
+ * @param includePaths Include operations whose path matches any of these globs.
+ * @param excludePaths Exclude operations whose path matches any of these globs.
+ */
+public record OperationFilter(
+    Set<String> includeTags,
+    Set<String> excludeTags,
+    Set<String> includeOperationIds,
+    Set<String> excludeOperationIds,
+    List<PathGlob> includePaths,
+    List<PathGlob> excludePaths) {
+
+  /**
+   * A path glob and the pattern it compiles to. Globs are equal if their text is.
+   *
+   * @param glob The glob, like {@code /pets/**}.
+   * @param pattern The compiled glob.
+   */
+  public record PathGlob(String glob, Pattern pattern) {
+    public static PathGlob of(String glob) {
+      return new PathGlob(glob, globToPattern(glob));
+    }
+
+    boolean matches(String relativePath) {
+      return pattern.matcher(relativePath).matches();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof PathGlob other && other.glob.equals(glob);
+    }
+
+    @Override
+    public int hashCode() {
+      return glob.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return glob;
+    }
+  }
+
+  /** Get a filter which includes every operation. */
+  public static OperationFilter all() {
+    return newBuilder().build();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** True if this filter may exclude some operations, or false if it includes every operation. */
+  public boolean isFiltering() {
+    return hasIncludeCriteria()
+        || !excludeTags.isEmpty()
+        || !excludeOperationIds.isEmpty()
+        || !excludePaths.isEmpty();
+  }
+
+  /** True if the operation located at the given relative path should be generated. */
+  public boolean test(String relativePath, Operation operation) {
+    var included =
+        !hasIncludeCriteria()
+            || matches(relativePath, operation, includeTags, includeOperationIds, includePaths);
+    return included
+        && !matches(relativePath, operation, excludeTags, excludeOperationIds, excludePaths);
+  }
+
+  private boolean hasIncludeCriteria() {
+    return !includeTags.isEmpty() || !includeOperationIds.isEmpty() || !includePaths.isEmpty();
+  }
+
+  private static boolean matches(
+      String relativePath,
+      Operation operation,
+      Set<String> tags,
+      Set<String> operationIds,
+      List<PathGlob> paths) {
+    return operation.tags().stream().anyMatch(tags::contains)
+        || operation.operationId().filter(operationIds::contains).isPresent()
+        || paths.stream().anyMatch(glob -> glob.matches(relativePath));
+  }
+
+  private static Pattern globToPattern(String glob) {
+    var regex = new StringBuilder();
+    for (var i = 0; i < glob.length(); i++) {
+      var c = glob.charAt(i);
+      if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+        regex.append(".*");
+        i++;
+      } else if (c == '*') {
+        regex.append("[^/]*");
+      } else if (c == '?') {
+        regex.append("[^/]");
+      } else {
+        regex.append(Pattern.quote(String.valueOf(c)));
+      }
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  public static class Builder {
+    private Set<String> includeTags = Set.of();
+    private Set<String> excludeTags = Set.of();
+    private Set<String> includeOperationIds = Set.of();
+    private Set<String> excludeOperationIds = Set.of();
+    private List<PathGlob> includePaths = List.of();
+    private List<PathGlob> excludePaths = List.of();
+
+    public Builder includeTags(Collection<String> includeTags) {
+      this.includeTags = Set.copyOf(includeTags);
+      return this;
+    }
+
+    public Builder excludeTags(Collection<String> excludeTags) {
+      this.excludeTags = Set.copyOf(excludeTags);
+      return this;
+    }
+
+    public Builder includeOperationIds(Collection<String> includeOperationIds) {
+      this.includeOperationIds = Set.copyOf(includeOperationIds);
+      return this;
+    }
+
+    public Builder excludeOperationIds(Collection<String> excludeOperationIds) {
+      this.excludeOperationIds = Set.copyOf(excludeOperationIds);
+      return this;
+    }
+
+    public Builder includePaths(Collection<String> includePaths) {
+      this.includePaths = includePaths.stream().map(PathGlob::of).toList();
+      return this;
+    }
+
+    public Builder excludePaths(Collection<String> excludePaths) {
+      this.excludePaths = excludePaths.stream().map(PathGlob::of).toList();
+      return this;
+    }
+
+    public OperationFilter build() {
+      return new OperationFilter(
+          requireNonNull(includeTags),
+          requireNonNull(excludeTags),
+          requireNonNull(includeOperationIds),
+          requireNonNull(excludeOperationIds),
+          requireNonNull(includePaths),
+          requireNonNull(excludePaths));
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import io.github.tomboyo.lily.compiler.oas.model.Header;
+import io.github.tomboyo.lily.compiler.oas.model.None;
+import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import io.github.tomboyo.lily.compiler.oas.model.Parameter;
+import io.github.tomboyo.lily.compiler.oas.model.Ref;
+import io.github.tomboyo.lily.compiler.oas.model.RequestBody;
+import io.github.tomboyo.lily.compiler.oas.model.Response;
+import io.github.tomboyo.lily.compiler.oas.model.Schema;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves local {@code $ref}s, like {@code #/components/parameters/Foo}, against the components of
+ * a single OAS document.
+ *
+ * <p>Every entry of {@code #/components} is indexed by its JSON pointer when the resolver is
+ * created, so lookups do not parse the $ref. Resolution follows chains of $refs (a $ref to a
+ * component which is itself a $ref) until it finds a definition, and the result is memoized. A
+ * chain which loops back on itself is reported and resolves to nothing.
+ */
+public class RefResolver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RefResolver.class);
+
+  private static final String SCHEMAS = "#/components/schemas/";
+
+  /** JSON pointer to component definition, or to a Ref if the component is an alias. */
+  private final Map<String, Object> index;
+
+  /** JSON pointer to schema component name. */
+  private final Map<String, String> schemaNames;
+
+  private final Map<String, Optional<Object>> resolved = new ConcurrentHashMap<>();
+
+  private final ComposedSchemas composedSchemas = new ComposedSchemas(this);
+
+  private RefResolver(Map<String, Object> index, Map<String, String> schemaNames) {
+    this.index = index;
+    this.schemaNames = schemaNames;
+  }
+
+  /** Index the components of the given document. */
+  public static RefResolver of(OpenApi openApi) {
+    var index = new HashMap<String, Object>();
+    var schemaNames = new HashMap<String, String>();
+    openApi
+        .components()
+        .ifPresent(
+            components -> {
+              components
+                  .schemas()
+                  .forEach(
+                      (name, schema) -> {
+                        var pointer = SCHEMAS + escape(name);
+                        schemaNames.put(pointer, name);
+                        schema.ifPresent(s -> index.put(pointer, s));
+                      });
+              put(index, "#/components/parameters/", components.parameters());
+              put(index, "#/components/requestBodies/", components.requestBodies());
+              put(index, "#/components/responses/", components.responses());
+              put(index, "#/components/headers/", components.headers());
+            });
+    return new RefResolver(index, schemaNames);
+  }
+
+  /** Get a resolver for a document without any components. */
+  public static RefResolver empty() {
+    return new RefResolver(Map.of(), Map.of());
+  }
+
+  private static void put(Map<String, Object> index, String prefix, Map<String, ?> components) {
+    components.forEach((name, component) -> index.put(prefix + escape(name), component));
+  }
+
+  /** Escape a component name for use in a JSON pointer, as per RFC 6901. */
+  static String escape(String name) {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+
+  /**
+   * Get the name of the schema component identified by the given $ref, like {@code Foo} for {@code
+   * #/components/schemas/Foo}. If the $ref does not identify a known component, the name is derived
+   * from the $ref itself.
+   */
+  public String schemaName(String $ref) {
+    var name = schemaNames.get($ref);
+    if (name != null) {
+      return name;
+    }
+    return $ref.startsWith(SCHEMAS) ? $ref.substring(SCHEMAS.length()) : $ref;
+  }
+
+  /** Flattened composed schemas of this document, memoized across every schema evaluated. */
+  ComposedSchemas composedSchemas() {
+    return composedSchemas;
+  }
+
+  /** Resolve a $ref to a schema, following $refs to $refs. */
+  public Optional<Schema> resolveSchema(String $ref) {
+    return resolve($ref, Schema.class);
+  }
+
+  /** Resolve a $ref to a parameter, following $refs to $refs. */
+  public Optional<Parameter> resolveParameter(String $ref) {
+    return resolve($ref, Parameter.class);
+  }
+
+  /** Resolve a $ref to a request body, following $refs to $refs. */
+  public Optional<RequestBody> resolveRequestBody(String $ref) {
+    return resolve($ref, RequestBody.class);
+  }
+
+  /** Resolve a $ref to a response, following $refs to $refs. */
+  public Optional<Response> resolveResponse(String $ref) {
+    return resolve($ref, Response.class);
+  }
+
+  /** Resolve a $ref to a header, following $refs to $refs. */
+  public Optional<Header> resolveHeader(String $ref) {
+    return resolve($ref, Header.class);
+  }
+
+  private <T> Optional<T> resolve(String $ref, Class<T> type) {
+    var definition = resolved.computeIfAbsent($ref, this::follow);
+    if (definition.isPresent() && !type.isInstance(definition.get())) {
+      LOGGER.warn(
+          "Expected {} to refer to a {}, but it is a {}",
+          $ref,
+          type.getSimpleName(),
+          definition.get().getClass().getSimpleName());
+      return Optional.empty();
+    }
+    return definition.map(type::cast);
+  }
+
+  private Optional<Object> follow(String $ref) {
+    var visited = new LinkedHashSet<String>();
+    var current = $ref;
+    while (visited.add(current)) {
+      var component = index.get(current);
+      if (component == null || component instanceof None) {
+        LOGGER.warn("Unable to resolve {}", current);
+        return Optional.empty();
+      } else if (component instanceof Ref(String next)) {
+        current = next;
+      } else {
+        return Optional.of(component);
+      }
+    }
+    LOGGER.warn("Unable to resolve {} due to a $ref cycle: {}", $ref, visited);
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,34 @@
+package io.github.tomboyo.lily.compiler.jfr;
+
+import io.github.tomboyo.lily.compiler.ast.PackageName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Evaluating an entire OAS document to AST. */
+@Name("io.github.tomboyo.lily.Evaluate")
+@Label("Evaluate OAS Document")
+@Description("Evaluating every component schema and path item of an OAS document to AST.")
+@Category({"Lily", "Evaluate"})
+@StackTrace(false)
+public final class EvaluateEvent extends Event {
+
+  @Label("Base Package")
+  String basePackage;
+
+  @Label("Parallelism")
+  int parallelism;
+
+  /** End the event and commit it if it is enabled. */
+  public void commit(PackageName basePackage, int parallelism) {
+    end();
+    if (shouldCommit()) {
+      this.basePackage = basePackage.toString();
+      this.parallelism = parallelism;
+      commit();
+    }
+  }
+}
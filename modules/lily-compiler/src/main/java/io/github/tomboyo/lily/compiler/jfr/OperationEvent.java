@@ -0,0 +1,42 @@
+package io.github.tomboyo.lily.compiler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evaluating an OAS operation to AST, including its parameters, request body, and responses, whose
+ * schema events are nested within this one.
+ */
+@Name("io.github.tomboyo.lily.Operation")
+@Label("Evaluate Operation")
+@Description("Evaluating an OAS operation, its parameters, request body and responses, to AST.")
+@Category({"Lily", "Evaluate"})
+@StackTrace(false)
+public final class OperationEvent extends Event {
+
+  @Label("JSON Pointer")
+  @Description("The location of the operation in the document, like #/paths/~1pets/get.")
+  String pointer;
+
+  @Label("Operation ID")
+  String operationId;
+
+  /** End the event and commit it if it is enabled. */
+  public void commit(String relativePath, String method, String operationId) {
+    end();
+    if (shouldCommit()) {
+      this.pointer = "#/paths/" + escape(relativePath) + "/" + escape(method.toLowerCase());
+      this.operationId = operationId;
+      commit();
+    }
+  }
+
+  /** Escape a JSON pointer reference token (RFC 6901). */
+  private static String escape(String token) {
+    return token.replace("~", "~0").replace("/", "~1");
+  }
+}
@@ -0,0 +1,35 @@
+package io.github.tomboyo.lily.compiler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Reading and parsing an OAS document. */
+@Name("io.github.tomboyo.lily.Read")
+@Label("Read OAS Document")
+@Description("Reading and parsing an OAS document, or reading its snapshot.")
+@Category({"Lily", "Parse"})
+@StackTrace(false)
+public final class ReadEvent extends Event {
+
+  @Label("Source")
+  @Description("The path or URL of the document.")
+  String source;
+
+  /**
+   * End the event and commit it if it is enabled.
+   *
+   * @param source The location of the document, which is only converted to a String if the event is
+   *     committed.
+   */
+  public void commit(Object source) {
+    end();
+    if (shouldCommit()) {
+      this.source = String.valueOf(source);
+      commit();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package io.github.tomboyo.lily.compiler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Rendering one AST node to Java source code. */
+@Name("io.github.tomboyo.lily.Render")
+@Label("Render Source")
+@Description("Rendering one AST node to Java source code.")
+@Category({"Lily", "Render"})
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+  @Label("Type")
+  @Description("The fully-qualified name of the rendered type.")
+  String fqn;
+
+  @Label("AST")
+  @Description("The kind of AST node rendered, like AstClass.")
+  String ast;
+
+  @Label("Characters")
+  int characters;
+
+  /** End the event and commit it if it is enabled. */
+  public void commit(String fqn, Class<?> ast, int characters) {
+    end();
+    if (shouldCommit()) {
+      this.fqn = fqn;
+      this.ast = ast.getSimpleName();
+      this.characters = characters;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package io.github.tomboyo.lily.compiler.jfr;
+
+import io.github.tomboyo.lily.compiler.ast.Fqn;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evaluating an OAS schema to AST. The duration includes the schemas nested within it, whose events
+ * are nested within this one.
+ */
+@Name("io.github.tomboyo.lily.Schema")
+@Label("Evaluate Schema")
+@Description("Evaluating an OAS schema, and the schemas nested within it, to AST.")
+@Category({"Lily", "Evaluate"})
+@StackTrace(false)
+public final class SchemaEvent extends Event {
+
+  @Label("Type")
+  @Description("The fully-qualified name of the type the schema evaluated to.")
+  String fqn;
+
+  /** End the event and commit it if it is enabled. */
+  public void commit(Fqn fqn) {
+    end();
+    if (shouldCommit()) {
+      this.fqn = fqn.toFqpString();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,6 @@
+/**
+ * JFR: JDK Flight Recorder events. The compiler emits these events as it reads, evaluates, and
+ * renders a document so that the cost of each schema and operation can be inspected with JDK
+ * Mission Control. Events cost next to nothing unless a recording is running.
+ */
+package io.github.tomboyo.lily.compiler.jfr;
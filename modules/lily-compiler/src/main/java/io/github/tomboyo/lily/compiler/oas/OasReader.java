@@ -1,21 +1,40 @@
 package io.github.tomboyo.lily.compiler.oas;
 
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
 import com.fasterxml.jackson.annotation.JsonSetter;
 import com.fasterxml.jackson.annotation.Nulls;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
 import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import io.github.tomboyo.lily.compiler.OasParseException;
+import io.github.tomboyo.lily.compiler.jfr.ReadEvent;
 import io.github.tomboyo.lily.compiler.oas.jackson.NoneAwareDeserializerModifier;
 import io.github.tomboyo.lily.compiler.oas.model.None;
 import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,11 +45,23 @@ import org.slf4j.LoggerFactory;
 public class OasReader {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(OasReader.class);
-  private static final ObjectMapper MAPPER = createObjectMapper();
+  private static final ObjectMapper YAML_MAPPER = createObjectMapper(new YAMLFactory());
+
+  /**
+   * JSON is a subset of YAML, but jackson's native JSON parser is much faster than the YAML parser,
+   * so we use it whenever we know a document is JSON.
+   */
+  private static final ObjectMapper JSON_MAPPER = createObjectMapper(new JsonFactory());
 
-  private static ObjectMapper createObjectMapper() {
+  /** Reads document snapshots written by {@link #fromUrl(URL, Path)}. */
+  private static final ObjectMapper SMILE_MAPPER = createObjectMapper(new SmileFactory());
+
+  /** How many bytes we are willing to skip looking for the first token of a document. */
+  private static final int SNIFF_LIMIT = 1024;
+
+  private static ObjectMapper createObjectMapper(JsonFactory factory) {
     var mapper =
-        new ObjectMapper(new YAMLFactory())
+        new ObjectMapper(factory)
             .registerModule(new Jdk8Module())
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
             // Ignore malformed YAML entries where possible.
@@ -54,37 +85,326 @@ public class OasReader {
   /**
    * Read an OpenAPI object from a String source.
    *
-   * @param oasContent A String containing an OpenAPI V3 YAML specification.
+   * @param oasContent A String containing an OpenAPI V3 YAML or JSON specification.
    * @return An OpenAPI object representation of the source document.
    * @throws OasParseException If reading the document fails for any reason.
    */
   public static OpenApi fromString(String oasContent) throws OasParseException {
+    var event = new ReadEvent();
+    event.begin();
     try {
-      var openApi = MAPPER.readValue(oasContent, OpenApi.class);
+      var openApi =
+          parse(
+              false,
+              startsLikeJson(oasContent),
+              mapper -> mapper.readValue(oasContent, OpenApi.class));
       validate(openApi);
       return openApi;
     } catch (IOException e) {
       throw new OasParseException("Could not load openapi specification", e);
+    } finally {
+      event.commit("(string)");
     }
   }
 
   /**
    * Read an OpenAPI object from a source located by a URI.
    *
-   * @param oasUrl The URL of an OpenAPI YAML specification resource.
+   * <p>JSON documents are detected by a {@code .json} file extension, a JSON content type, or by
+   * their first non-whitespace character, and are read with a JSON parser. Everything else is read
+   * as YAML, as are documents which only start like JSON but are not, like YAML flow mappings.
+   *
+   * @param url The URL of an OpenAPI YAML or JSON specification resource.
    * @return An OpenAPI object representation of the source document.
    * @throws OasParseException If reading the document fails for any reason.
    */
   public static OpenApi fromUrl(URL url) throws OasParseException {
-    try (var is = url.openStream()) {
-      var openApi = MAPPER.readValue(is, OpenApi.class);
+    var event = new ReadEvent();
+    event.begin();
+    try {
+      var connection = url.openConnection();
+      try (var is = new BufferedInputStream(connection.getInputStream())) {
+        var isJson =
+            url.getPath().endsWith(".json") || isJsonContentType(connection.getContentType());
+        OpenApi openApi;
+        if (!isJson && !isYamlPath(url.getPath()) && startsLikeJson(is)) {
+          // Buffer the document so that it can be read again as YAML if it is not JSON.
+          var bytes = is.readAllBytes();
+          openApi = parse(false, true, mapper -> mapper.readValue(bytes, OpenApi.class));
+        } else {
+          openApi = (isJson ? JSON_MAPPER : YAML_MAPPER).readValue(is, OpenApi.class);
+        }
+        validate(openApi);
+        return openApi;
+      }
+    } catch (IOException e) {
+      throw new OasParseException("Could not load openapi specification", e);
+    } finally {
+      event.commit(url);
+    }
+  }
+
+  /**
+   * Read an OpenAPI object from a source located by a URI, using a snapshot cache to avoid parsing
+   * the same document more than once.
+   *
+   * <p>The first time a document is read, it is converted to a compact binary (Smile) snapshot and
+   * saved to the given directory under the SHA-256 hash of the document's bytes. When a document
+   * with the same hash is read again, the snapshot is read instead, which avoids YAML parsing
+   * entirely. Snapshots hold the document itself rather than Lily's interpretation of it, so they
+   * remain valid across Lily versions.
+   *
+   * @param url The URL of an OpenAPI YAML or JSON specification resource.
+   * @param snapshotDirectory The directory in which to save and look up snapshots. It is created if
+   *     it does not exist.
+   * @return An OpenAPI object representation of the source document.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static OpenApi fromUrl(URL url, Path snapshotDirectory) throws OasParseException {
+    var event = new ReadEvent();
+    event.begin();
+    try {
+      var connection = url.openConnection();
+      ByteBuffer source;
+      try (var is = connection.getInputStream()) {
+        source = ByteBuffer.wrap(is.readAllBytes());
+      }
+      var isJson =
+          url.getPath().endsWith(".json") || isJsonContentType(connection.getContentType());
+      return fromSnapshotOrSource(source, isJson, !isYamlPath(url.getPath()), snapshotDirectory);
+    } catch (IOException e) {
+      throw new OasParseException("Could not load openapi specification", e);
+    } finally {
+      event.commit(url);
+    }
+  }
+
+  /**
+   * Read an OpenAPI object from a local file.
+   *
+   * <p>The file is memory-mapped and parsed directly from its bytes, so the document is never
+   * copied onto the heap as a String. JSON documents are detected as in {@link #fromUrl(URL)}.
+   *
+   * @param path The path to an OpenAPI YAML or JSON specification file.
+   * @return An OpenAPI object representation of the source document.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static OpenApi fromPath(Path path) throws OasParseException {
+    var event = new ReadEvent();
+    event.begin();
+    try (var channel = FileChannel.open(path, READ)) {
+      var source = channel.map(READ_ONLY, 0, channel.size());
+      var openApi =
+          parse(
+              path.toString().endsWith(".json"),
+              !isYamlPath(path.toString()) && startsLikeJson(source),
+              mapper ->
+                  mapper.readValue(
+                      new ByteBufferBackedInputStream(source.duplicate()), OpenApi.class));
       validate(openApi);
       return openApi;
     } catch (IOException e) {
       throw new OasParseException("Could not load openapi specification", e);
+    } finally {
+      event.commit(path);
+    }
+  }
+
+  /**
+   * Read an OpenAPI object from a local file, using a snapshot cache to avoid parsing the same
+   * document more than once. See {@link #fromPath(Path)} and {@link #fromUrl(URL, Path)}.
+   *
+   * @param path The path to an OpenAPI YAML or JSON specification file.
+   * @param snapshotDirectory The directory in which to save and look up snapshots. It is created if
+   *     it does not exist.
+   * @return An OpenAPI object representation of the source document.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static OpenApi fromPath(Path path, Path snapshotDirectory) throws OasParseException {
+    var event = new ReadEvent();
+    event.begin();
+    try (var channel = FileChannel.open(path, READ)) {
+      var source = channel.map(READ_ONLY, 0, channel.size());
+      return fromSnapshotOrSource(
+          source,
+          path.toString().endsWith(".json"),
+          !isYamlPath(path.toString()),
+          snapshotDirectory);
+    } catch (IOException e) {
+      throw new OasParseException("Could not load openapi specification", e);
+    } finally {
+      event.commit(path);
+    }
+  }
+
+  /**
+   * Read a local YAML or JSON file into a tree without binding it to the OAS model. This reads
+   * documents which need not be whole OpenAPI specifications, like a file of schemas which another
+   * document $refs. JSON documents are detected as in {@link #fromPath(Path)}.
+   *
+   * @param path The path to a YAML or JSON file.
+   * @return The root of the document, which is a missing node if the document is empty.
+   * @throws OasParseException If reading the document fails for any reason.
+   */
+  public static JsonNode treeFromPath(Path path) throws OasParseException {
+    try (var channel = FileChannel.open(path, READ)) {
+      var source = channel.map(READ_ONLY, 0, channel.size());
+      return parse(
+          path.toString().endsWith(".json"),
+          !isYamlPath(path.toString()) && startsLikeJson(source),
+          mapper -> mapper.readTree(new ByteBufferBackedInputStream(source.duplicate())));
+    } catch (IOException e) {
+      throw new OasParseException("Could not read " + path, e);
     }
   }
 
+  private static OpenApi fromSnapshotOrSource(
+      ByteBuffer source, boolean isJson, boolean sniff, Path snapshotDirectory) throws IOException {
+    var snapshot = snapshotDirectory.resolve(sha256(source) + ".smile");
+    if (Files.isRegularFile(snapshot)) {
+      try {
+        var openApi = SMILE_MAPPER.readValue(snapshot.toFile(), OpenApi.class);
+        validate(openApi);
+        return openApi;
+      } catch (IOException e) {
+        LOGGER.warn("Ignoring unreadable snapshot {}", snapshot, e);
+      }
+    }
+
+    var smile = parse(isJson, sniff && startsLikeJson(source), mapper -> toSmile(mapper, source));
+    var openApi = SMILE_MAPPER.readValue(smile, OpenApi.class);
+    validate(openApi);
+    saveSnapshot(snapshot, smile);
+    return openApi;
+  }
+
+  /** Reads a document with the given mapper. */
+  private interface Parse<T> {
+    T with(ObjectMapper mapper) throws IOException;
+  }
+
+  /**
+   * Parse a document with the JSON parser if it is known to be JSON or starts like JSON, and
+   * otherwise with the YAML parser. YAML flow mappings also start with '{', so a document which
+   * only starts like JSON is read again as YAML if it is not valid JSON.
+   */
+  private static <T> T parse(boolean isJson, boolean startsLikeJson, Parse<T> parse)
+      throws IOException {
+    if (isJson) {
+      return parse.with(JSON_MAPPER);
+    }
+    if (!startsLikeJson) {
+      return parse.with(YAML_MAPPER);
+    }
+
+    StreamReadException notJson;
+    try {
+      return parse.with(JSON_MAPPER);
+    } catch (StreamReadException e) {
+      notJson = e;
+    }
+    try {
+      return parse.with(YAML_MAPPER);
+    } catch (IOException e) {
+      e.addSuppressed(notJson);
+      throw e;
+    }
+  }
+
+  private static boolean isYamlPath(String path) {
+    return path.endsWith(".yaml") || path.endsWith(".yml");
+  }
+
+  /** Transcode a JSON or YAML document into Smile without binding it to the OAS model. */
+  private static byte[] toSmile(ObjectMapper mapper, ByteBuffer source) throws IOException {
+    var out = new ByteArrayOutputStream(source.remaining() / 2);
+    try (var parser = mapper.createParser(new ByteBufferBackedInputStream(source.duplicate()));
+        var generator = SMILE_MAPPER.createGenerator(out)) {
+      if (parser.nextToken() != null) {
+        generator.copyCurrentStructure(parser);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static void saveSnapshot(Path snapshot, byte[] smile) {
+    try {
+      Files.createDirectories(snapshot.getParent());
+      // Write to a temporary file first so that concurrent builds never observe a partial
+      // snapshot.
+      var tmp =
+          Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+      Files.write(tmp, smile);
+      Files.move(
+          tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // The snapshot is only an optimization.
+      LOGGER.warn("Failed to save snapshot {}", snapshot, e);
+    }
+  }
+
+  private static String sha256(ByteBuffer bytes) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      digest.update(bytes.duplicate());
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static boolean isJsonContentType(String contentType) {
+    // e.g. application/json; charset=utf-8, or application/vnd.oai.openapi+json
+    return contentType != null
+        && (contentType.startsWith("application/json") || contentType.contains("+json"));
+  }
+
+  private static boolean startsLikeJson(ByteBuffer buffer) {
+    var end = Math.min(buffer.limit(), buffer.position() + SNIFF_LIMIT);
+    for (var i = buffer.position(); i < end; i++) {
+      var b = buffer.get(i) & 0xFF;
+      if (!isInsignificantByte(b)) {
+        return b == '{';
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsLikeJson(String content) {
+    for (var i = 0; i < content.length() && i < SNIFF_LIMIT; i++) {
+      var c = content.charAt(i);
+      if (!Character.isWhitespace(c) && c != '\uFEFF') {
+        return c == '{';
+      }
+    }
+    return false;
+  }
+
+  /** Peek at the first non-whitespace byte of the stream, then rewind it. */
+  private static boolean startsLikeJson(InputStream is) throws IOException {
+    is.mark(SNIFF_LIMIT);
+    try {
+      for (var i = 0; i < SNIFF_LIMIT; i++) {
+        var b = is.read();
+        if (!isInsignificantByte(b)) {
+          return b == '{';
+        }
+      }
+      return false;
+    } finally {
+      is.reset();
+    }
+  }
+
+  /** Whitespace and the bytes of the UTF-8 byte order mark. */
+  private static boolean isInsignificantByte(int b) {
+    return switch (b) {
+      case ' ', '\t', '\r', '\n', 0xEF, 0xBB, 0xBF -> true;
+      default -> false;
+    };
+  }
+
   private static void validate(OpenApi spec) {
     var version = spec.openapi();
     if (version.isEmpty() || !version.get().startsWith("3.")) {
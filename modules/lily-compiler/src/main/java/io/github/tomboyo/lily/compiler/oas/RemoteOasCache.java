@@ -0,0 +1,178 @@
+package io.github.tomboyo.lily.compiler.oas;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.github.tomboyo.lily.compiler.OasParseException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps local copies of remote OAS documents so that builds do not download a document which has
+ * not changed, and can still compile when the document's host is unreachable.
+ *
+ * <p>Each document is saved to the cache directory along with the ETag and Last-Modified headers of
+ * the response which delivered it. The next fetch sends these back as If-None-Match and
+ * If-Modified-Since, and re-uses the local copy if the server responds 304 Not Modified. If the
+ * server cannot be reached or responds with an error, the local copy is used anyway (with a
+ * warning). In offline mode, the network is never used at all.
+ */
+public class RemoteOasCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteOasCache.class);
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private static final HttpClient CLIENT =
+      HttpClient.newBuilder()
+          .followRedirects(Redirect.NORMAL)
+          .connectTimeout(CONNECT_TIMEOUT)
+          .build();
+
+  private RemoteOasCache() {}
+
+  /**
+   * Get a local copy of the remote OAS document, downloading it only if the cached copy (if any) is
+   * out of date.
+   *
+   * @param uri The http or https URI of an OAS document.
+   * @param cacheDirectory The directory in which to save documents. It is created if it does not
+   *     exist, and may be shared by concurrent builds.
+   * @param offline If true, only return a previously cached copy, and never use the network.
+   * @return The path to the local copy of the document.
+   * @throws OasParseException If there is no cached copy and the document cannot be downloaded.
+   */
+  public static Path fetch(URI uri, Path cacheDirectory, boolean offline) throws OasParseException {
+    var key = sha256(uri.toString());
+    var document = cacheDirectory.resolve(key + extension(uri));
+    var metadata = cacheDirectory.resolve(key + ".properties");
+    var cached =
+        Files.isRegularFile(document) ? readMetadata(metadata) : Optional.<Properties>empty();
+
+    if (offline) {
+      if (cached.isEmpty()) {
+        throw new OasParseException("Offline, and " + uri + " has not been cached");
+      }
+      LOGGER.debug("Offline; using cached copy of {}", uri);
+      return document;
+    }
+
+    var request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET();
+    cached.ifPresent(
+        properties -> {
+          var etag = properties.getProperty("etag");
+          if (etag != null) {
+            request.header("If-None-Match", etag);
+          }
+          var lastModified = properties.getProperty("lastModified");
+          if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+          }
+        });
+
+    try {
+      var response = CLIENT.send(request.build(), BodyHandlers.ofByteArray());
+      if (response.statusCode() == 304 && cached.isPresent()) {
+        LOGGER.debug("{} is not modified; using cached copy", uri);
+        return document;
+      } else if (response.statusCode() / 100 != 2) {
+        return fallBack(uri, document, cached, "HTTP " + response.statusCode(), null);
+      }
+
+      var properties = new Properties();
+      properties.setProperty("uri", uri.toString());
+      response.headers().firstValue("ETag").ifPresent(v -> properties.setProperty("etag", v));
+      response
+          .headers()
+          .firstValue("Last-Modified")
+          .ifPresent(v -> properties.setProperty("lastModified", v));
+      save(cacheDirectory, document, metadata, response.body(), properties);
+      return document;
+    } catch (IOException e) {
+      return fallBack(uri, document, cached, e.toString(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OasParseException("Interrupted while fetching " + uri, e);
+    }
+  }
+
+  /**
+   * The extension of the local copy, which tells {@link OasReader#fromPath(Path)} how to parse it.
+   * Documents served from paths without a recognized extension, like {@code /v3/api-docs}, are
+   * saved without one, so that the reader detects whether they are JSON from their contents.
+   */
+  private static String extension(URI uri) {
+    var path = uri.getPath() == null ? "" : uri.getPath();
+    if (path.endsWith(".json")) {
+      return ".json";
+    } else if (path.endsWith(".yaml") || path.endsWith(".yml")) {
+      return ".yaml";
+    }
+    return "";
+  }
+
+  private static Path fallBack(
+      URI uri, Path document, Optional<Properties> cached, String reason, Exception cause)
+      throws OasParseException {
+    if (cached.isEmpty()) {
+      throw new OasParseException("Could not fetch " + uri + ": " + reason, cause);
+    }
+    LOGGER.warn("Could not fetch {} ({}); using cached copy {}", uri, reason, document);
+    return document;
+  }
+
+  private static Optional<Properties> readMetadata(Path metadata) {
+    var properties = new Properties();
+    try (var reader = Files.newBufferedReader(metadata, UTF_8)) {
+      properties.load(reader);
+      return Optional.of(properties);
+    } catch (IOException e) {
+      // Treat the document as uncached; it will be downloaded again.
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Save the document and then its metadata. Each is written to a temporary file and moved into
+   * place so that concurrent builds never observe a partial file.
+   */
+  private static void save(
+      Path cacheDirectory, Path document, Path metadata, byte[] body, Properties properties)
+      throws IOException {
+    Files.createDirectories(cacheDirectory);
+    var tmp = Files.createTempFile(cacheDirectory, document.getFileName().toString(), ".tmp");
+    Files.write(tmp, body);
+    Files.move(tmp, document, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    tmp = Files.createTempFile(cacheDirectory, metadata.getFileName().toString(), ".tmp");
+    try (var writer = Files.newBufferedWriter(tmp, UTF_8)) {
+      properties.store(writer, null);
+    }
+    Files.move(tmp, metadata, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static String sha256(String value) {
+    try {
+      return HexFormat.of()
+          .formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
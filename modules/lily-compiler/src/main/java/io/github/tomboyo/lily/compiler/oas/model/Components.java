@@ -3,4 +3,9 @@ package io.github.tomboyo.lily.compiler.oas.model;
 import java.util.Map;
 import java.util.Optional;
 
-public record Components(Map<String, Optional<ISchema>> schemas) {}
+public record Components(
+    Map<String, Optional<ISchema>> schemas,
+    Map<String, IParameter> parameters,
+    Map<String, IRequestBody> requestBodies,
+    Map<String, IResponse> responses,
+    Map<String, IHeader> headers) {}
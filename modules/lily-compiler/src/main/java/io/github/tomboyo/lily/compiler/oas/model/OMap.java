@@ -1,7 +1,9 @@
 package io.github.tomboyo.lily.compiler.oas.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /** Wraps a HashMap with a null-safe API. */
@@ -24,4 +26,9 @@ public class OMap<K, V> {
   public Optional<V> get(K key) {
     return Optional.ofNullable(delegate.get(key));
   }
+
+  /** An unmodifiable view of every entry. */
+  public Map<K, V> asMap() {
+    return Collections.unmodifiableMap(delegate);
+  }
 }
@@ -0,0 +1,126 @@
+package io.github.tomboyo.lily.compiler.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A concurrent map which holds its values by weak or soft reference, so that they are collected
+ * once nothing else uses them. Entries are removed once their values are collected.
+ *
+ * <p>Weak values suit interning: {@link #computeIfAbsent(Object, Function)} returns the one live
+ * value for a key, and a new value is only created once no one can hold the previous one, so equal
+ * interned values are still the same instance. Soft values suit caches of values which are cheap to
+ * compute again.
+ */
+public final class ReferenceMap<K, V> {
+
+  private interface Entry<K> {
+    K key();
+  }
+
+  private static final class WeakEntry<K, V> extends WeakReference<V> implements Entry<K> {
+    private final K key;
+
+    private WeakEntry(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+
+    @Override
+    public K key() {
+      return key;
+    }
+  }
+
+  private static final class SoftEntry<K, V> extends SoftReference<V> implements Entry<K> {
+    private final K key;
+
+    private SoftEntry(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+
+    @Override
+    public K key() {
+      return key;
+    }
+  }
+
+  private final ConcurrentHashMap<K, Reference<V>> map = new ConcurrentHashMap<>();
+  private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+  private final boolean soft;
+
+  private ReferenceMap(boolean soft) {
+    this.soft = soft;
+  }
+
+  /** A map whose values are collected as soon as nothing else references them. */
+  public static <K, V> ReferenceMap<K, V> weakValues() {
+    return new ReferenceMap<>(false);
+  }
+
+  /** A map whose values are collected when nothing else references them and memory is short. */
+  public static <K, V> ReferenceMap<K, V> softValues() {
+    return new ReferenceMap<>(true);
+  }
+
+  /** Get the value for the key, or null if there is none. */
+  public V get(K key) {
+    expunge();
+    var reference = map.get(key);
+    return reference == null ? null : reference.get();
+  }
+
+  /**
+   * Get the value for the key, or else compute and add one. Threads racing to add a value for the
+   * same key may each compute one, but all of them return the same one.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+    expunge();
+    while (true) {
+      var reference = map.get(key);
+      var value = reference == null ? null : reference.get();
+      if (value != null) {
+        return value;
+      }
+
+      value = function.apply(key);
+      var created = reference(key, value);
+      if (reference == null
+          ? map.putIfAbsent(key, created) == null
+          : map.replace(key, reference, created)) {
+        return value;
+      }
+    }
+  }
+
+  /** The number of entries, including any whose values were collected but not yet removed. */
+  public int size() {
+    expunge();
+    return map.size();
+  }
+
+  /**
+   * The reference which holds the value for the key, or null if there is none. Tests enqueue it to
+   * collect the value as the garbage collector would, without depending on when it runs.
+   */
+  Reference<V> referenceTo(K key) {
+    return map.get(key);
+  }
+
+  private Reference<V> reference(K key, V value) {
+    return soft ? new SoftEntry<>(key, value, queue) : new WeakEntry<>(key, value, queue);
+  }
+
+  /** Remove the entries whose values were collected. */
+  @SuppressWarnings("unchecked")
+  private void expunge() {
+    for (Reference<? extends V> reference; (reference = queue.poll()) != null; ) {
+      map.remove(((Entry<K>) reference).key(), reference);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package io.github.tomboyo.lily.compiler.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A SHA-256 hash of an object graph made of records, collections, maps, optionals, strings, and
+ * other simple values.
+ *
+ * <p>Values are hashed structurally: every value is tagged with its type, and strings and
+ * collections with their lengths, so different graphs do not hash alike by accident. Records are
+ * hashed by class name and components, in declaration order. Types which are none of these must be
+ * handled by an {@link Extension}, or the digest fails.
+ */
+public final class StructuralDigest {
+
+  /** Hashes types which the digest does not support, or hashes supported types differently. */
+  public interface Extension {
+    /**
+     * Hash the value into the digest, if this extension handles its type.
+     *
+     * @return True if the value was hashed, or false to hash it as usual.
+     */
+    boolean walk(Object value, StructuralDigest digest);
+  }
+
+  private static final ClassValue<RecordComponent[]> COMPONENTS =
+      new ClassValue<>() {
+        @Override
+        protected RecordComponent[] computeValue(Class<?> type) {
+          return type.getRecordComponents();
+        }
+      };
+
+  private final MessageDigest digest = sha256();
+  private final byte[] lengthBytes = new byte[Integer.BYTES];
+  private final Extension extension;
+
+  public StructuralDigest(Extension extension) {
+    this.extension = extension;
+  }
+
+  /** Get a new SHA-256 digest. */
+  public static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Hash the value and everything it contains. */
+  public StructuralDigest walk(Object value) {
+    if (value != null && extension.walk(value, this)) {
+      return this;
+    }
+    switch (value) {
+      case null -> tag('0');
+      case String string -> {
+        tag('S');
+        string(string);
+      }
+      case Boolean bool -> tag(bool ? 'T' : 'F');
+      case Number number -> {
+        tag('#');
+        string(number.toString());
+      }
+      case Enum<?> constant -> {
+        tag('E');
+        string(constant.name());
+      }
+      case Optional<?> optional -> {
+        tag('O');
+        walk(optional.orElse(null));
+      }
+      case Collection<?> collection -> {
+        tag('L');
+        length(collection.size());
+        collection.forEach(this::walk);
+      }
+      case Map<?, ?> map -> {
+        tag('M');
+        length(map.size());
+        map.forEach(
+            (key, entry) -> {
+              walk(key);
+              walk(entry);
+            });
+      }
+      case Record record -> {
+        tag('R');
+        string(record.getClass().getName());
+        for (var component : COMPONENTS.get(record.getClass())) {
+          walk(read(record, component));
+        }
+      }
+      default -> throw new IllegalArgumentException("Can not hash " + value.getClass().getName());
+    }
+    return this;
+  }
+
+  /** Hash a tag which identifies the type of the value which follows. */
+  public StructuralDigest tag(char tag) {
+    digest.update((byte) tag);
+    return this;
+  }
+
+  /** Hash a length or count. */
+  public StructuralDigest length(int length) {
+    lengthBytes[0] = (byte) (length >>> 24);
+    lengthBytes[1] = (byte) (length >>> 16);
+    lengthBytes[2] = (byte) (length >>> 8);
+    lengthBytes[3] = (byte) length;
+    digest.update(lengthBytes);
+    return this;
+  }
+
+  /** Hash a string, prefixed by its length. */
+  public StructuralDigest string(String string) {
+    var bytes = string.getBytes(UTF_8);
+    length(bytes.length);
+    digest.update(bytes);
+    return this;
+  }
+
+  /** Complete the hash. The digest can not be used afterwards. */
+  public byte[] digest() {
+    return digest.digest();
+  }
+
+  private static Object read(Record record, RecordComponent component) {
+    try {
+      return component.getAccessor().invoke(record);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException(
+          "Can not read " + component.getName() + " of " + record.getClass().getName(), e);
+    }
+  }
+}
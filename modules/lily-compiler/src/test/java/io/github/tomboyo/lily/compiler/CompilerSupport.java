@@ -47,7 +47,14 @@ public class CompilerSupport {
    */
   public static Map<String, Path> compileOas(String rootPackageName, String oas)
       throws OasParseException {
-    var generatedSourcePaths = LilyCompiler.compile(oas, GENERATED_SOURCES, rootPackageName);
+    return compileOas(rootPackageName, oas, CompilerOptions.defaults());
+  }
+
+  /** Like {@link #compileOas(String, String)}, but with the given compiler options. */
+  public static Map<String, Path> compileOas(
+      String rootPackageName, String oas, CompilerOptions options) throws OasParseException {
+    var generatedSourcePaths =
+        LilyCompiler.compile(oas, GENERATED_SOURCES, rootPackageName, options);
     compileJavaSources(TEST_CLASSES, generatedSourcePaths.values());
     return generatedSourcePaths;
   }
@@ -167,10 +167,15 @@ public class LilyExtension
      * @see CompilerSupport#compileOas(String, String)
      */
     public void compileOas(String specification) {
+      compileOas(specification, CompilerOptions.defaults());
+    }
+
+    /** Like {@link #compileOas(String)}, but with the given compiler options. */
+    public void compileOas(String specification, CompilerOptions options) {
       preventRepeatedCodeGen();
 
       try {
-        setSourcePaths(ctx, CompilerSupport.compileOas(getPackage(ctx), specification));
+        setSourcePaths(ctx, CompilerSupport.compileOas(getPackage(ctx), specification, options));
       } catch (OasParseException e) {
         throw new RuntimeException(e);
       }
@@ -0,0 +1,33 @@
+package io.github.tomboyo.lily.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LilyVersionTest {
+
+  @Test
+  void releasesAreIdentifiedByVersion(@TempDir Path classes) {
+    assertEquals("1.0.0", LilyVersion.buildId("1.0.0", Optional.of(classes)));
+  }
+
+  @Test
+  void snapshotsAreIdentifiedByTheirCode(@TempDir Path classes) throws Exception {
+    var template = classes.resolve("io/github/tomboyo/lily/compiler/cg/Template.class");
+    Files.createDirectories(template.getParent());
+    Files.writeString(template, "before");
+    var before = LilyVersion.buildId("SNAPSHOT", Optional.of(classes));
+
+    // Rebuilding the same code, like mvn install without clean, does not change the ID.
+    Files.writeString(template, "before");
+    assertEquals(before, LilyVersion.buildId("SNAPSHOT", Optional.of(classes)));
+
+    Files.writeString(template, "after");
+    assertNotEquals(before, LilyVersion.buildId("SNAPSHOT", Optional.of(classes)));
+  }
+}
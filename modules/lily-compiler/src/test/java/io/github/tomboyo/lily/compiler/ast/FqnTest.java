@@ -1,7 +1,10 @@
 package io.github.tomboyo.lily.compiler.ast;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.lang.ref.WeakReference;
 import java.nio.file.Path;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,4 +50,37 @@ public class FqnTest {
   void asPath() {
     assertEquals(Path.of("java/util/List.java"), subject.toPath());
   }
+
+  @Test
+  void equalFqnsAreTheSameInstance() {
+    var copy =
+        Fqn.newBuilder(subject)
+            .typeParameters(
+                List.of(
+                    Fqn.newBuilder("java.util", "List")
+                        .typeParameters(List.of(Fqn.newBuilder("java.lang", "String").build()))
+                        .build()))
+            .build();
+    assertSame(subject, copy);
+    assertSame(subject.packageName(), PackageName.of("java").resolve("util"));
+  }
+
+  @Test
+  void unusedFqnsAreNotRetained() throws Exception {
+    var unused =
+        new WeakReference<>(Fqn.newBuilder("com.example.unused", "NeverSeenAgain").build());
+
+    for (var i = 0; i < 50 && unused.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    // System.gc() is only a hint, which some collectors and -XX:+DisableExplicitGC ignore.
+    // ReferenceMapTest covers the pool without the collector.
+    assumeTrue(unused.get() == null, "The garbage collector did not run");
+    assertSame(
+        Fqn.newBuilder("com.example.unused", "NeverSeenAgain").build(),
+        Fqn.newBuilder("com.example.unused", "NeverSeenAgain").build(),
+        "Fqns are interned again once collected");
+  }
 }
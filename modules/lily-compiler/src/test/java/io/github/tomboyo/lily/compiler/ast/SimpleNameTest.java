@@ -167,4 +167,10 @@ class SimpleNameTest {
   void resolve() {
     assertEquals(SimpleName.of("GetFoo200"), SimpleName.of("Get").resolve("Foo").resolve("200"));
   }
+
+  @Test
+  void equalNamesAreTheSameInstance() {
+    assertSame(SimpleName.of("cat-dog"), SimpleName.of("CatDog"));
+    assertSame(SimpleName.of("cat_dog"), SimpleName.of("cat").resolve("Dog"));
+  }
 }
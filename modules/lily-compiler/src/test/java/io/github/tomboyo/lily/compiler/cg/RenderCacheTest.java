@@ -0,0 +1,89 @@
+package io.github.tomboyo.lily.compiler.cg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.github.tomboyo.lily.compiler.ast.AstClass;
+import io.github.tomboyo.lily.compiler.ast.AstInterface;
+import io.github.tomboyo.lily.compiler.ast.Fqn;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RenderCacheTest {
+
+  @TempDir Path directory;
+
+  private static AstClass ast(String name, String docstring) {
+    return AstClass.of(Fqn.newBuilder("com.example", name).build(), List.of(), docstring);
+  }
+
+  @Test
+  void hitsReturnTheSameSourceAsRendering() {
+    var cache = RenderCache.open(directory, Long.MAX_VALUE);
+
+    var rendered = cache.render(ast("Foo", "docs"));
+    var cached = cache.render(ast("Foo", "docs"));
+
+    assertEquals(CodeGen.renderAst(ast("Foo", "docs")), rendered);
+    assertEquals(rendered, cached);
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+  }
+
+  @Test
+  void interfacesAreCached() {
+    var cache = RenderCache.open(directory, Long.MAX_VALUE);
+    var ast =
+        new AstInterface(
+            Fqn.newBuilder("com.example", "Pet").build(),
+            List.of(Fqn.newBuilder("com.example", "Dog").build()));
+
+    cache.render(ast);
+
+    assertEquals(CodeGen.renderAst(ast), cache.render(ast));
+    assertEquals(1, cache.hits());
+  }
+
+  @Test
+  void hitsAreSharedBetweenCachesInTheSameDirectory() {
+    RenderCache.open(directory, Long.MAX_VALUE).render(ast("Foo", "docs"));
+
+    // A different size re-loads the cache from disk, like another process would.
+    var cache = RenderCache.open(directory, Long.MAX_VALUE - 1);
+    cache.render(ast("Foo", "docs"));
+
+    assertEquals(1, cache.hits());
+    assertSame(cache, RenderCache.open(directory, Long.MAX_VALUE - 1));
+    assertNotSame(cache, RenderCache.open(directory.resolve("other"), Long.MAX_VALUE - 1));
+  }
+
+  @Test
+  void keysDependOnTheWholeAst() {
+    assertEquals(RenderCache.key(ast("Foo", "docs")), RenderCache.key(ast("Foo", "docs")));
+    assertNotEquals(RenderCache.key(ast("Foo", "docs")), RenderCache.key(ast("Bar", "docs")));
+    assertNotEquals(RenderCache.key(ast("Foo", "docs")), RenderCache.key(ast("Foo", "other")));
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedSources() throws Exception {
+    var bytes = CodeGen.renderAst(ast("Foo", "docs")).contents().getBytes(StandardCharsets.UTF_8);
+    var cache = RenderCache.open(directory, bytes.length * 2L - 1);
+
+    cache.render(ast("Foo", "docs"));
+    cache.render(ast("Bar", "docs"));
+
+    try (var files = Files.list(directory)) {
+      assertEquals(
+          List.of(directory.resolve(RenderCache.key(ast("Bar", "docs")) + ".java")),
+          files.toList());
+    }
+    cache.render(ast("Foo", "docs"));
+    assertEquals(0, cache.hits());
+  }
+}
@@ -0,0 +1,115 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import picocli.CommandLine;
+
+class BatchCommandTest {
+
+  @TempDir Path directory;
+
+  @BeforeEach
+  void writeSpecs() throws Exception {
+    for (var name : new String[] {"pets", "stores"}) {
+      Files.writeString(
+          directory.resolve(name + ".yaml"),
+          """
+          openapi: 3.0.2
+          components:
+            schemas:
+              Thing:
+                type: object
+                properties:
+                  name:
+                    type: string
+          """);
+    }
+  }
+
+  @Test
+  void compilesEverySpec() throws Exception {
+    var manifest =
+        Files.writeString(
+            directory.resolve("manifest.yaml"),
+            """
+            specs:
+              - source: pets.yaml
+                outputDir: out
+                basePackage: com.example.pets
+              - source: stores.yaml
+                outputDir: out
+                basePackage: com.example.stores
+            """);
+
+    var exitCode =
+        new CommandLine(new CompileCommand())
+            .execute("batch", "--manifest", manifest.toString(), "--parallelism", "2");
+
+    assertEquals(0, exitCode);
+    assertTrue(Files.isRegularFile(directory.resolve("out/com/example/pets/Thing.java")));
+    assertTrue(Files.isRegularFile(directory.resolve("out/com/example/stores/Thing.java")));
+  }
+
+  @Test
+  void failsIfAnySpecFails() throws Exception {
+    var manifest =
+        Files.writeString(
+            directory.resolve("manifest.json"),
+            """
+            { "specs": [
+              { "source": "pets.yaml", "outputDir": "out", "basePackage": "com.example.pets" },
+              { "source": "missing.yaml", "outputDir": "out", "basePackage": "com.example.x" }
+            ] }
+            """);
+
+    var exitCode =
+        new CommandLine(new CompileCommand()).execute("batch", "--manifest", manifest.toString());
+
+    assertEquals(1, exitCode);
+    assertTrue(
+        Files.isRegularFile(directory.resolve("out/com/example/pets/Thing.java")),
+        "Other specs are still compiled");
+  }
+
+  @Test
+  void rejectsSpecsWithTheSameOutput() throws Exception {
+    var manifest =
+        Files.writeString(
+            directory.resolve("manifest.yaml"),
+            """
+            specs:
+              - source: pets.yaml
+                outputDir: out
+                basePackage: com.example
+              - source: stores.yaml
+                outputDir: ./out/
+                basePackage: com.example
+            """);
+
+    var exitCode =
+        new CommandLine(new CompileCommand()).execute("batch", "--manifest", manifest.toString());
+
+    assertEquals(1, exitCode);
+    assertFalse(Files.exists(directory.resolve("out")), "Nothing is compiled");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"~", "{}", "specs:", "specs: [null]"})
+  void rejectsManifestsWithoutSpecs(String contents) throws Exception {
+    var manifest = Files.writeString(directory.resolve("manifest.yaml"), contents);
+
+    var exitCode =
+        new CommandLine(new CompileCommand()).execute("batch", "--manifest", manifest.toString());
+
+    assertEquals(1, exitCode);
+  }
+}
@@ -0,0 +1,108 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+class CompileCommandTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void recordsCompilerEventsWithJfr() throws Exception {
+    var spec =
+        Files.writeString(
+            directory.resolve("spec.yaml"),
+            """
+            openapi: 3.0.2
+            paths:
+              /pets/{id}:
+                get:
+                  operationId: getPet
+                  responses:
+                    '200':
+                      description: The pet.
+                      content:
+                        application/json:
+                          schema:
+                            $ref: '#/components/schemas/Pet'
+            components:
+              schemas:
+                Pet:
+                  type: object
+                  properties:
+                    name:
+                      type: string
+            """);
+    var recording = directory.resolve("lily.jfr");
+
+    var exitCode =
+        new CommandLine(new CompileCommand())
+            .execute(
+                "--source",
+                spec.toString(),
+                "--output-dir",
+                directory.resolve("out").toString(),
+                "--base-package",
+                "p",
+                "--jfr",
+                recording.toString());
+
+    assertEquals(0, exitCode);
+    var events =
+        RecordingFile.readAllEvents(recording).stream()
+            .filter(event -> event.getEventType().getName().startsWith("io.github.tomboyo.lily."))
+            .collect(
+                Collectors.groupingBy(
+                    event -> event.getEventType().getName(),
+                    Collectors.mapping(CompileCommandTest::tag, Collectors.toSet())));
+    assertEquals(Set.of(spec.toString()), events.get("io.github.tomboyo.lily.Read"));
+    assertEquals(Set.of("p"), events.get("io.github.tomboyo.lily.Evaluate"));
+    assertTrue(events.get("io.github.tomboyo.lily.Schema").contains("p.Pet"));
+    assertEquals(
+        Set.of("#/paths/~1pets~1{id}/get"), events.get("io.github.tomboyo.lily.Operation"));
+    assertTrue(events.get("io.github.tomboyo.lily.Render").contains("p.Pet"));
+  }
+
+  @Test
+  void offlineWithoutASpecCacheIsAUsageError() {
+    var errors = new StringWriter();
+    var commandLine = new CommandLine(new CompileCommand());
+    commandLine.setErr(new PrintWriter(errors));
+
+    var exitCode =
+        commandLine.execute(
+            "--source",
+            directory.resolve("spec.yaml").toString(),
+            "--output-dir",
+            directory.resolve("out").toString(),
+            "--base-package",
+            "p",
+            "--offline");
+
+    assertEquals(2, exitCode);
+    assertTrue(
+        errors.toString().startsWith("--offline requires --spec-cache-dir"), errors.toString());
+  }
+
+  /** The field which identifies what each kind of event is about. */
+  private static String tag(RecordedEvent event) {
+    return switch (event.getEventType().getName()) {
+      case "io.github.tomboyo.lily.Read" -> event.getString("source");
+      case "io.github.tomboyo.lily.Evaluate" -> event.getString("basePackage");
+      case "io.github.tomboyo.lily.Operation" -> event.getString("pointer");
+      default -> event.getString("fqn");
+    };
+  }
+}
@@ -0,0 +1,138 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import picocli.CommandLine;
+
+class DaemonCommandTest {
+
+  @TempDir Path directory;
+
+  private Path socket;
+  private Thread daemon;
+
+  @BeforeEach
+  void startDaemon() throws Exception {
+    socket = directory.resolve("lily.sock");
+    daemon =
+        new Thread(
+            () ->
+                new CommandLine(new CompileCommand())
+                    .execute("daemon", "--socket", socket.toString(), "--threads", "2"));
+    daemon.start();
+    for (var i = 0; i < 100 && !Files.exists(socket); i++) {
+      Thread.sleep(50);
+    }
+  }
+
+  @AfterEach
+  void stopDaemon() throws Exception {
+    daemon.interrupt();
+    daemon.join(10_000);
+  }
+
+  @Test
+  void compilesOnBehalfOfClient() throws Exception {
+    Files.writeString(
+        directory.resolve("spec.yaml"),
+        """
+        openapi: 3.0.2
+        components:
+          schemas:
+            Pet:
+              type: object
+              properties:
+                name:
+                  type: string
+        """);
+
+    var client = new CompileCommand();
+    client.workingDirectory = directory;
+    var exitCode =
+        new CommandLine(client)
+            .execute(
+                "--daemon",
+                socket.toString(),
+                "--source",
+                "spec.yaml",
+                "--output-dir",
+                "out",
+                "--base-package",
+                "p");
+
+    assertEquals(0, exitCode);
+    assertTrue(
+        Files.isRegularFile(directory.resolve("out/p/Pet.java")),
+        "Relative paths are resolved against the client's working directory");
+  }
+
+  @Test
+  void reportsFailures() {
+    var errors = new StringWriter();
+    var exitCode =
+        new CommandLine(new CompileCommand())
+            .setErr(new PrintWriter(errors))
+            .execute(
+                "--daemon=" + socket,
+                "--source",
+                directory.resolve("missing.yaml").toString(),
+                "--output-dir",
+                directory.resolve("out").toString(),
+                "--base-package",
+                "p");
+
+    assertEquals(1, exitCode);
+    assertTrue(
+        errors.toString().contains("missing.yaml"), "The daemon sends the error to the client");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"daemon", "batch", "--watch", "--jfr"})
+  void rejectsArgumentsWhichOnlyTheClientMayUse(String arg) throws Exception {
+    var errors = new StringWriter();
+    var exitCode =
+        DaemonCommand.forward(
+            socket, directory, List.of(arg, "x", "--source", "a.yaml"), new PrintWriter(errors));
+
+    assertEquals(2, exitCode);
+    assertTrue(errors.toString().contains(arg), errors.toString());
+  }
+
+  @Test
+  void rejectsTooManyArguments() throws Exception {
+    try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        var in = new DataInputStream(Channels.newInputStream(channel));
+        var out = new DataOutputStream(Channels.newOutputStream(channel))) {
+      out.writeUTF(directory.toString());
+      out.writeInt(-1);
+      out.flush();
+
+      assertEquals(2, in.readInt());
+    }
+  }
+
+  @Test
+  void withoutDaemonOption() {
+    assertEquals(
+        List.of("--source", "a.yaml"),
+        DaemonCommand.withoutDaemonOption(
+            List.of("--daemon", "x.sock", "--source", "a.yaml", "--daemon=y.sock")));
+  }
+}
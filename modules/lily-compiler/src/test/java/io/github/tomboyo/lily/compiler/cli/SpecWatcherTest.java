@@ -0,0 +1,139 @@
+package io.github.tomboyo.lily.compiler.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpecWatcherTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void referencedFiles() throws Exception {
+    var spec =
+        Files.writeString(
+            directory.resolve("spec.yaml"),
+            """
+            openapi: 3.0.2
+            paths:
+              /pets:
+                $ref: 'paths/pets.yaml'
+            components:
+              schemas:
+                Pet:
+                  $ref: "schemas.yaml#/Pet"
+                Toy:
+                  $ref: '#/components/schemas/Pet'
+                Remote:
+                  $ref: 'https://example.com/remote.yaml#/Remote'
+                Described:
+                  description: "Not a reference: { $ref: 'described.yaml' }"
+                  type: string
+            """);
+
+    assertEquals(
+        Set.of(directory.resolve("paths/pets.yaml"), directory.resolve("schemas.yaml")),
+        referencedFiles(spec),
+        "Local files are found, but local and remote $refs and $refs in text are ignored");
+  }
+
+  @Test
+  void referencedFilesAreFollowed() throws Exception {
+    var spec =
+        Files.writeString(
+            directory.resolve("spec.yaml"),
+            """
+            openapi: 3.0.2
+            paths:
+              /pets:
+                $ref: 'paths/pets.yaml'
+            """);
+    Files.createDirectories(directory.resolve("paths"));
+    Files.writeString(
+        directory.resolve("paths/pets.yaml"),
+        """
+        get:
+          responses:
+            '200':
+              description: The pets.
+              content:
+                application/json:
+                  schema:
+                    $ref: '../schemas.json#/Pets'
+        """);
+    Files.writeString(
+        directory.resolve("schemas.json"),
+        """
+        { "Pets": { "type": "array", "items": { "$ref": "#/Pet" } },
+          "Pet": { "$ref": "spec.yaml#/components/schemas/Pet" } }
+        """);
+
+    assertEquals(
+        Set.of(directory.resolve("paths/pets.yaml"), directory.resolve("schemas.json")),
+        referencedFiles(spec),
+        "Files are followed relative to the file which refs them, and cycles terminate");
+  }
+
+  @Test
+  void awaitsChangeToReferencedFile() throws Exception {
+    var spec =
+        Files.writeString(
+            directory.resolve("spec.yaml"), "{ \"$ref\": \"other/schemas.json#/Pet\" }");
+    var other = Files.createDirectories(directory.resolve("other")).resolve("schemas.json");
+    Files.writeString(other, "{}");
+
+    try (var watcher = new SpecWatcher(spec)) {
+      Files.writeString(other, "{ \"Pet\": {} }");
+
+      assertTimeoutPreemptively(Duration.ofSeconds(30), watcher::awaitChange);
+    }
+  }
+
+  @Test
+  void onlyChangedFilesAreParsedAgain() throws Exception {
+    var spec = Files.writeString(directory.resolve("spec.yaml"), "$ref: 'a.yaml'");
+    Files.writeString(directory.resolve("a.yaml"), "$ref: 'b.yaml'");
+
+    try (var watcher = new SpecWatcher(spec)) {
+      // Give a.yaml new refs but keep its size and time, so only a parse would notice.
+      var a = directory.resolve("a.yaml");
+      var modified = Files.getLastModifiedTime(a);
+      Files.writeString(a, "$ref: 'c.yaml'");
+      Files.setLastModifiedTime(a, modified);
+      Files.writeString(spec, "$ref: 'a.yaml'\n");
+
+      assertEquals(
+          Set.of(a, directory.resolve("b.yaml")),
+          watcher.referencedFiles(),
+          "The changed spec is parsed again, but the unchanged a.yaml is not");
+    }
+  }
+
+  @Test
+  void stopsWatchingDirectoriesWhichAreNoLongerReferenced() throws Exception {
+    var spec = Files.writeString(directory.resolve("spec.yaml"), "$ref: 'other/schemas.yaml'");
+    var other = Files.createDirectories(directory.resolve("other"));
+    Files.writeString(other.resolve("schemas.yaml"), "{}");
+
+    try (var watcher = new SpecWatcher(spec)) {
+      assertEquals(Set.of(directory, other), watcher.directories());
+
+      Files.writeString(spec, "openapi: 3.0.2");
+      watcher.refresh();
+
+      assertEquals(Set.of(directory), watcher.directories());
+    }
+  }
+
+  private static Set<Path> referencedFiles(Path spec) throws Exception {
+    try (var watcher = new SpecWatcher(spec)) {
+      return watcher.referencedFiles();
+    }
+  }
+}
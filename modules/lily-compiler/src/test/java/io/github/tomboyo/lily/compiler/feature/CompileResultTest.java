@@ -0,0 +1,77 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.tomboyo.lily.compiler.CompileResult.Phase;
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Compilations report what they generated and wrote, and how long each phase took. */
+public class CompileResultTest {
+
+  private static final String SPEC =
+      """
+      openapi: 3.0.2
+      paths:
+        /pets:
+          get:
+            operationId: listPets
+            responses:
+              '200':
+                description: The pets.
+                content:
+                  application/json:
+                    schema:
+                      $ref: '#/components/schemas/Pet'
+      components:
+        schemas:
+          Pet:
+            type: object
+            properties:
+              name:
+                type: string
+          Toy:
+            type: object
+            properties:
+              name:
+                type: string
+      """;
+
+  @TempDir Path outputDir;
+
+  @Test
+  void countsWhatWasGeneratedAndWritten() throws Exception {
+    var result =
+        LilyCompiler.compileWithResult(SPEC, outputDir, "p", CompilerOptions.newBuilder().build());
+
+    assertEquals(2, result.schemas());
+    assertEquals(1, result.operations());
+    assertEquals(Set.of(Phase.values()), result.phaseTimes().keySet());
+    assertEquals(Set.of(Phase.values()), result.heapUsed().keySet());
+    assertEquals(
+        result.sources().size(),
+        result.astNodes().values().stream().mapToLong(Long::longValue).sum(),
+        "Every AST node is rendered to one source");
+    assertEquals(2L, result.astNodes().get("AstClass"), "Pet and Toy");
+    assertEquals(result.sources().size(), result.filesWritten());
+    assertEquals(0, result.filesSkipped());
+    assertTrue(result.bytesWritten() > 0);
+    assertTrue(result.peakHeapUsed() > 0);
+  }
+
+  @Test
+  void countsUnchangedFilesAsSkipped() throws Exception {
+    var options = CompilerOptions.newBuilder().build();
+    var first = LilyCompiler.compileWithResult(SPEC, outputDir, "p", options);
+    var second = LilyCompiler.compileWithResult(SPEC, outputDir, "p", options);
+
+    assertEquals(0, second.filesWritten());
+    assertEquals(0, second.bytesWritten());
+    assertEquals(first.sources().size(), second.filesSkipped());
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+import io.github.tomboyo.lily.compiler.LilyExtension;
+import io.github.tomboyo.lily.compiler.LilyExtension.LilyTestSupport;
+import java.net.URI;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Operations may $ref parameters, request bodies, responses, and headers defined under
+ * #/components, including via chains of $refs. These generate the same code as their inline
+ * equivalents.
+ */
+@ExtendWith(LilyExtension.class)
+public class ComponentRefsTest {
+
+  @BeforeAll
+  static void beforeAll(LilyTestSupport support) {
+    support.compileOas(
+        """
+        openapi: 3.0.2
+        paths:
+          /pets/{petId}:
+            put:
+              operationId: updatePet
+              parameters:
+                - $ref: '#/components/parameters/PetIdAlias'
+              requestBody:
+                $ref: '#/components/requestBodies/PetBody'
+              responses:
+                '200':
+                  $ref: '#/components/responses/PetResponse'
+        components:
+          schemas:
+            Pet:
+              type: object
+              properties:
+                name:
+                  type: string
+          parameters:
+            PetIdAlias:
+              $ref: '#/components/parameters/PetId'
+            PetId:
+              name: petId
+              in: path
+              required: true
+              schema:
+                type: string
+          requestBodies:
+            PetBody:
+              content:
+                'application/json':
+                  schema:
+                    $ref: '#/components/schemas/Pet'
+          responses:
+            PetResponse:
+              headers:
+                x-request-id:
+                  $ref: '#/components/headers/RequestId'
+              content:
+                'application/json':
+                  schema:
+                    $ref: '#/components/schemas/Pet'
+          headers:
+            RequestId:
+              schema:
+                type: string
+        """);
+  }
+
+  @Test
+  void parameterRef(LilyTestSupport support) {
+    var actual =
+        support.evaluate(
+            """
+            return {{package}}.Api.newBuilder()
+              .uri("https://example.com/")
+              .build()
+              .everyOperation()
+              .updatePet()
+              .path(path -> path.petId("1234"))
+              .httpRequest()
+              .uri();
+            """,
+            URI.class);
+
+    assertThat(
+        "Parameters are resolved through chains of $refs",
+        actual,
+        is(URI.create("https://example.com/pets/1234")));
+  }
+
+  @Test
+  void requestBodyRef(LilyTestSupport support) {
+    assertDoesNotThrow(
+        () ->
+            support.evaluate(
+                """
+                return {{package}}.Api.newBuilder()
+                  .uri("https://example.com/")
+                  .build()
+                  .everyOperation()
+                  .updatePet()
+                  .body(new {{package}}.Pet("Fido"));
+                """),
+        "The operation accepts the referenced request body");
+  }
+
+  @Test
+  void responseRef(LilyTestSupport support) {
+    assertDoesNotThrow(
+        () -> support.getClassForName("{{package}}.updatepetoperation.UpdatePet200"),
+        "The referenced response is generated");
+  }
+
+  @Test
+  void headerRef(LilyTestSupport support) {
+    assertDoesNotThrow(
+        () ->
+            support
+                .getClassForName("{{package}}.updatepetoperation.response.UpdatePet200Headers")
+                .getMethod("xRequestId"),
+        "The referenced header is generated");
+  }
+}
@@ -0,0 +1,103 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.Footprint;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Every generated source is attributed to the component schema or operation it came from, including
+ * inline types nested within them.
+ */
+public class FootprintTest {
+
+  private static Footprint footprint;
+
+  @BeforeAll
+  static void compile(@TempDir Path outputDir) throws Exception {
+    var result =
+        LilyCompiler.compileWithResult(
+            """
+            openapi: 3.0.2
+            paths:
+              /pets:
+                post:
+                  operationId: createPet
+                  requestBody:
+                    content:
+                      application/json:
+                        schema:
+                          type: object
+                          properties:
+                            name:
+                              type: string
+                  responses:
+                    '201':
+                      description: Created.
+            components:
+              schemas:
+                Pets:
+                  type: array
+                  items:
+                    type: object
+                    properties:
+                      name:
+                        type: string
+            """,
+            outputDir,
+            "p",
+            CompilerOptions.newBuilder().footprint(true).build());
+    footprint = result.footprint().orElseThrow();
+    assertEquals(result.sources().size(), footprint.files().size());
+  }
+
+  @Test
+  void attributesInlineSchemasToTheirComponent() {
+    assertEquals(Set.of("p.Pets", "p.pets.PetsItem"), fqnsFrom("#/components/schemas/Pets"));
+  }
+
+  @Test
+  void attributesOperationTypesToTheirOperationId() {
+    var fqns = fqnsFrom("createPet");
+    assertTrue(fqns.contains("p.CreatePetOperation"), fqns.toString());
+    assertTrue(
+        fqns.stream().anyMatch(fqn -> fqn.startsWith("p.createpetoperation.")), fqns.toString());
+  }
+
+  @Test
+  void measuresFiles() {
+    for (var file : footprint.files()) {
+      assertTrue(file.lines() > 0, file.toString());
+      assertTrue(file.bytes() > file.lines(), file.toString());
+      assertTrue(file.classes() > 0, file.toString());
+    }
+  }
+
+  @Test
+  void rendersJsonAndCsv() throws Exception {
+    var json = new ObjectMapper().readTree(footprint.toJson());
+    assertEquals(footprint.byOrigin().size(), json.size());
+    assertEquals(footprint.byOrigin().get(0).origin(), json.get(0).get("origin").asText());
+    assertEquals(footprint.byOrigin().get(0).bytes(), json.get(0).get("bytes").asLong());
+
+    var csv = footprint.toCsv().lines().toList();
+    assertEquals("origin,fqn,path,lines,bytes,classes", csv.get(0));
+    assertEquals(footprint.files().size() + 1, csv.size());
+  }
+
+  private static Set<String> fqnsFrom(String origin) {
+    return footprint.files().stream()
+        .filter(file -> file.origin().equals(origin))
+        .map(Footprint.GeneratedFile::fqn)
+        .collect(Collectors.toSet());
+  }
+}
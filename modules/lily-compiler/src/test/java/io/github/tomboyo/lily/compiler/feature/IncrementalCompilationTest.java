@@ -0,0 +1,231 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * An incremental compilation only evaluates and renders the parts of a document which changed, or
+ * which reference something that changed, since the last compilation. It generates the same files
+ * as a full compilation.
+ */
+public class IncrementalCompilationTest {
+
+  private static final String BEFORE =
+      """
+      openapi: 3.0.2
+      paths:
+        /pets/{id}:
+          get:
+            operationId: getPet
+            tags: [pets]
+            responses:
+              '200':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Pet'
+        /unrelated:
+          get:
+            operationId: getUnrelated
+            tags: [other]
+            responses:
+              '200':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Unrelated'
+      components:
+        schemas:
+          Pet:
+            type: object
+            properties:
+              name:
+                type: string
+              toy:
+                type: object
+                properties:
+                  name:
+                    type: string
+          Owner:
+            type: object
+            properties:
+              pets:
+                type: array
+                items:
+                  $ref: '#/components/schemas/Pet'
+          Unrelated:
+            type: object
+            properties:
+              name:
+                type: string
+          Removed:
+            type: object
+            properties:
+              name:
+                type: string
+      """;
+
+  private static final String AFTER =
+      """
+      openapi: 3.0.2
+      paths:
+        /pets/{id}:
+          get:
+            operationId: getPet
+            tags: [pets]
+            responses:
+              '200':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Pet'
+        /unrelated:
+          get:
+            operationId: getUnrelated
+            tags: [other]
+            responses:
+              '200':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Unrelated'
+        /owners:
+          get:
+            operationId: getOwners
+            tags: [owners]
+            responses:
+              '200':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Owner'
+      components:
+        schemas:
+          Pet:
+            type: object
+            properties:
+              name:
+                type: string
+              age:
+                type: integer
+              toy:
+                type: object
+                properties:
+                  name:
+                    type: string
+          Owner:
+            type: object
+            properties:
+              pets:
+                type: array
+                items:
+                  $ref: '#/components/schemas/Pet'
+          Unrelated:
+            type: object
+            properties:
+              name:
+                type: string
+      """;
+
+  private static final CompilerOptions INCREMENTAL =
+      CompilerOptions.newBuilder().incremental(true).build();
+
+  @Test
+  void incrementalCompilationMatchesFullCompilation(
+      @TempDir Path incrementalDir, @TempDir Path fullDir) throws Exception {
+    LilyCompiler.compile(BEFORE, incrementalDir, "p", INCREMENTAL);
+    var incremental = LilyCompiler.compile(AFTER, incrementalDir, "p", INCREMENTAL);
+    var full = LilyCompiler.compile(AFTER, fullDir, "p");
+
+    assertEquals(
+        relativize(fullDir, full),
+        relativize(incrementalDir, incremental),
+        "The same sources are generated");
+    assertEquals(
+        contents(fullDir), contents(incrementalDir), "The output directories are identical");
+  }
+
+  @Test
+  void unchangedPartsOfTheDocumentAreReused(@TempDir Path outputDir) throws Exception {
+    LilyCompiler.compileWithResult(BEFORE, outputDir, "p", INCREMENTAL);
+    var result = LilyCompiler.compileWithResult(AFTER, outputDir, "p", INCREMENTAL);
+
+    // Pet changed, so Owner and getPet (which reference it) and the API (whose operations
+    // changed) are compiled again, as is the new getOwners. Unrelated and getUnrelated are not.
+    assertEquals(2, result.unitsReused());
+    assertEquals(2, result.operations(), "Only getOwners and getPet were rendered");
+  }
+
+  @Test
+  void unchangedDocumentsAreNotEvaluated(@TempDir Path outputDir) throws Exception {
+    LilyCompiler.compileWithResult(AFTER, outputDir, "p", INCREMENTAL);
+    var result = LilyCompiler.compileWithResult(AFTER, outputDir, "p", INCREMENTAL);
+
+    assertEquals(Map.of(), result.astNodes());
+    assertEquals(0, result.filesWritten() + result.filesSkipped());
+  }
+
+  @Test
+  void graphsSavedByAnotherBuildOfLilyAreDiscarded(@TempDir Path outputDir) throws Exception {
+    LilyCompiler.compileWithResult(AFTER, outputDir, "p", INCREMENTAL);
+    var graph = outputDir.resolve(".lily/p.graph.json");
+    var mapper = new ObjectMapper();
+    var state = (ObjectNode) mapper.readTree(graph.toFile());
+    state.put("lily", "SNAPSHOT+another-build");
+    mapper.writeValue(graph.toFile(), state);
+
+    var result = LilyCompiler.compileWithResult(AFTER, outputDir, "p", INCREMENTAL);
+
+    assertEquals(0, result.unitsReused());
+    assertEquals(3, result.operations(), "Every operation was rendered again");
+  }
+
+  @Test
+  void editedSourcesAreRegenerated(@TempDir Path outputDir) throws Exception {
+    var unrelated = LilyCompiler.compile(AFTER, outputDir, "p", INCREMENTAL).get("p.Unrelated");
+    var expected = Files.readString(unrelated);
+    Files.writeString(unrelated, "// edited\n");
+
+    LilyCompiler.compile(AFTER, outputDir, "p", INCREMENTAL);
+
+    assertEquals(expected, Files.readString(unrelated));
+  }
+
+  /** Map each FQN to the path of its source relative to the output directory. */
+  private static Map<String, Path> relativize(Path dir, Map<String, Path> fqns) {
+    return fqns.entrySet().stream()
+        .collect(toMap(Map.Entry::getKey, entry -> dir.relativize(entry.getValue())));
+  }
+
+  /** Map the path of each source in the output directory to its contents. */
+  private static Map<Path, String> contents(Path dir) throws IOException {
+    try (var files = Files.walk(dir)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(file -> !dir.relativize(file).startsWith(".lily"))
+          .collect(
+              toMap(dir::relativize, IncrementalCompilationTest::read, (a, b) -> a, TreeMap::new));
+    }
+  }
+
+  private static String read(Path path) {
+    try {
+      return Files.readString(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recompiling a document only touches files whose contents change, so that build tools do not
+ * recompile unchanged sources. Files which a previous compilation generated but the current one
+ * does not are deleted.
+ */
+public class IncrementalOutputTest {
+
+  private static final String BEFORE =
+      """
+      openapi: 3.0.2
+      paths: {}
+      components:
+        schemas:
+          Kept:
+            type: object
+            properties:
+              name:
+                type: string
+          Changed:
+            type: object
+            properties:
+              name:
+                type: string
+          Removed:
+            type: object
+            properties:
+              name:
+                type: string
+      """;
+
+  private static final String AFTER =
+      """
+      openapi: 3.0.2
+      paths: {}
+      components:
+        schemas:
+          Kept:
+            type: object
+            properties:
+              name:
+                type: string
+          Changed:
+            type: object
+            properties:
+              age:
+                type: integer
+      """;
+
+  private static final FileTime LONG_AGO = FileTime.from(Instant.parse("2000-01-01T00:00:00Z"));
+
+  @TempDir Path outputDir;
+
+  @Test
+  void unchangedFilesAreNotRewritten() throws Exception {
+    var kept = LilyCompiler.compile(BEFORE, outputDir, "p").get("p.Kept");
+    Files.setLastModifiedTime(kept, LONG_AGO);
+
+    LilyCompiler.compile(AFTER, outputDir, "p");
+
+    assertEquals(LONG_AGO, Files.getLastModifiedTime(kept));
+  }
+
+  @Test
+  void changedFilesAreRewritten() throws Exception {
+    var changed = LilyCompiler.compile(BEFORE, outputDir, "p").get("p.Changed");
+    Files.setLastModifiedTime(changed, LONG_AGO);
+
+    LilyCompiler.compile(AFTER, outputDir, "p");
+
+    assertTrue(Files.readString(changed).contains("age"));
+    assertTrue(Files.getLastModifiedTime(changed).compareTo(LONG_AGO) > 0);
+  }
+
+  @Test
+  void staleFilesAreDeleted() throws Exception {
+    var removed = LilyCompiler.compile(BEFORE, outputDir, "p").get("p.Removed");
+
+    LilyCompiler.compile(AFTER, outputDir, "p");
+
+    assertFalse(Files.exists(removed));
+  }
+
+  @Test
+  void otherPackagesAreUnaffected() throws Exception {
+    var removed = LilyCompiler.compile(BEFORE, outputDir, "p").get("p.Removed");
+
+    LilyCompiler.compile(AFTER, outputDir, "q");
+
+    assertTrue(Files.exists(removed), "Only the base package's own stale files are deleted");
+  }
+}
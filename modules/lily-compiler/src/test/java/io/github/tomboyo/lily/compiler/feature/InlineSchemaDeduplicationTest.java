@@ -0,0 +1,120 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyExtension;
+import io.github.tomboyo.lily.compiler.LilyExtension.LilyTestSupport;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * When enabled, structurally identical inline schemas generate one shared type, named after the
+ * occurrence in the shallowest package, or else whose name sorts first. References to the other
+ * occurrences use the shared type.
+ */
+@ExtendWith(LilyExtension.class)
+public class InlineSchemaDeduplicationTest {
+
+  private static final String BODY =
+      """
+                  content:
+                    'application/json':
+                      schema:
+                        type: object
+                        properties:
+                          name:
+                            type: string
+                          toy:
+                            type: object
+                            properties:
+                              color:
+                                type: string
+      """;
+
+  @BeforeAll
+  static void beforeAll(LilyTestSupport support) {
+    support.compileOas(
+        """
+        openapi: 3.0.2
+        paths:
+          /pets:
+            post:
+              operationId: createPet
+              requestBody:
+        %1$s
+            put:
+              operationId: updatePet
+              requestBody:
+        %1$s
+            patch:
+              operationId: renamePet
+              requestBody:
+                content:
+                  'application/json':
+                    schema:
+                      type: object
+                      properties:
+                        name:
+                          type: string
+        components:
+          schemas:
+            Pet:
+              type: object
+              properties:
+                name:
+                  type: string
+                toy:
+                  type: object
+                  properties:
+                    color:
+                      type: string
+        """
+            .formatted(BODY),
+        CompilerOptions.newBuilder().deduplicateInlineSchemas(true).build());
+  }
+
+  @Test
+  void generatesOneTypeForIdenticalSchemas(LilyTestSupport support) throws Exception {
+    assertNotNull(support.getClassForName("{{package}}.createpetoperation.CreatePetBody"));
+    assertThrows(
+        ClassNotFoundException.class,
+        () -> support.getClassForName("{{package}}.updatepetoperation.UpdatePetBody"));
+    assertThrows(
+        ClassNotFoundException.class,
+        () -> support.getClassForName("{{package}}.updatepetoperation.updatepetbody.Toy"));
+    assertThrows(
+        ClassNotFoundException.class,
+        () -> support.getClassForName("{{package}}.createpetoperation.createpetbody.Toy"));
+  }
+
+  @Test
+  void referencesUseTheSharedType(LilyTestSupport support) {
+    var body =
+        support.evaluate(
+            """
+            var body = new {{package}}.createpetoperation.CreatePetBody(
+                "Fido", new {{package}}.pet.Toy("red"));
+            {{package}}.Api.newBuilder()
+                .uri("http://localhost/")
+                .build()
+                .everyOperation()
+                .updatePet()
+                .body(body);
+            return body.name();
+            """,
+            String.class);
+
+    assertEquals("Fido", body);
+  }
+
+  @Test
+  void keepsDifferentSchemasAndComponents(LilyTestSupport support) throws Exception {
+    assertNotNull(support.getClassForName("{{package}}.renamepetoperation.RenamePetBody"));
+    assertNotNull(support.getClassForName("{{package}}.Pet"));
+    assertNotNull(support.getClassForName("{{package}}.pet.Toy"));
+  }
+}
@@ -0,0 +1,72 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.github.tomboyo.lily.compiler.LilyExtension;
+import io.github.tomboyo.lily.compiler.LilyExtension.LilyTestSupport;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * OAS documents may be written in JSON as well as YAML, whether given as a string or a URL. JSON
+ * documents are read by a JSON parser, so they may use JSON syntax which is not also YAML, like the
+ * escaped solidi below.
+ */
+public class JsonDocumentTest {
+
+  private static final String DOCUMENT =
+      """
+      {
+        "openapi": "3.0.2",
+        "paths": {
+          "/pets": {
+            "get": {
+              "operationId": "getPets",
+              "responses": {
+                "200": {
+                  "content": {
+                    "application/json": {
+                      "schema": { "$ref": "#\\/components\\/schemas\\/Pet" }
+                    }
+                  }
+                }
+              }
+            }
+          }
+        },
+        "components": {
+          "schemas": {
+            "Pet": {
+              "type": "object",
+              "properties": {
+                "name": { "type": "string" },
+                "tags": { "type": "array", "items": { "type": "string" } }
+              }
+            }
+          }
+        }
+      }
+      """;
+
+  @Test
+  @ExtendWith(LilyExtension.class)
+  void fromString(LilyTestSupport support) throws Exception {
+    support.compileOas(DOCUMENT);
+
+    assertNotNull(support.getClassForName("{{package}}.Pet"));
+    assertNotNull(support.getClassForName("{{package}}.GetPetsOperation"));
+  }
+
+  @Test
+  @ExtendWith(LilyExtension.class)
+  void fromUrl(LilyTestSupport support, @TempDir Path dir) throws Exception {
+    var file = Files.writeString(dir.resolve("document.json"), DOCUMENT);
+    support.compileOas(file.toUri().toURL());
+
+    assertNotNull(support.getClassForName("{{package}}.Pet"));
+    assertNotNull(support.getClassForName("{{package}}.GetPetsOperation"));
+  }
+}
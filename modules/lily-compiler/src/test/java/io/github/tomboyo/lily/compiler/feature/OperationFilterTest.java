@@ -0,0 +1,192 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import io.github.tomboyo.lily.compiler.icg.OperationFilter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Users may generate a subset of operations. Component schemas which the selected operations do not
+ * reference, directly or indirectly, are not generated.
+ */
+public class OperationFilterTest {
+
+  private static final String DOCUMENT =
+      """
+      openapi: 3.0.2
+      paths:
+        /pets:
+          get:
+            operationId: listPets
+            tags: [pets]
+            responses:
+              "200":
+                content:
+                  application/json:
+                    schema:
+                      type: array
+                      items:
+                        $ref: "#/components/schemas/Pet"
+        /pets/{id}/owner:
+          get:
+            operationId: getPetOwner
+            tags: [pets, owners]
+            parameters:
+              - name: id
+                in: path
+                schema:
+                  $ref: "#/components/schemas/PetId"
+            responses:
+              "200":
+                content:
+                  application/json:
+                    schema:
+                      $ref: "#/components/schemas/Owner"
+        /stores:
+          get:
+            operationId: listStores
+            tags: [stores]
+            responses:
+              "200":
+                content:
+                  application/json:
+                    schema:
+                      $ref: "#/components/schemas/Store"
+      components:
+        schemas:
+          PetId:
+            type: string
+          Pet:
+            type: object
+            properties:
+              toy:
+                $ref: "#/components/schemas/Toy"
+          Toy:
+            type: object
+            properties:
+              name:
+                type: string
+          Owner:
+            type: object
+            properties:
+              name:
+                type: string
+          Store:
+            type: object
+            properties:
+              name:
+                type: string
+      """;
+
+  @TempDir Path outputDir;
+
+  @Test
+  void noFilter() throws Exception {
+    var classes = compile(OperationFilter.all());
+
+    assertTrue(
+        classes.containsAll(
+            Set.of(
+                "p.ListPetsOperation",
+                "p.GetPetOwnerOperation",
+                "p.ListStoresOperation",
+                "p.Pet",
+                "p.Toy",
+                "p.Owner",
+                "p.Store")),
+        "Every operation and component is generated: " + classes);
+  }
+
+  @Test
+  void includeTags() throws Exception {
+    var classes = compile(OperationFilter.newBuilder().includeTags(List.of("pets")).build());
+
+    assertTrue(classes.contains("p.ListPetsOperation"));
+    assertTrue(classes.contains("p.GetPetOwnerOperation"));
+    assertFalse(classes.contains("p.ListStoresOperation"));
+  }
+
+  @Test
+  void excludeTags() throws Exception {
+    var classes =
+        compile(
+            OperationFilter.newBuilder()
+                .includeTags(List.of("pets"))
+                .excludeTags(List.of("owners"))
+                .build());
+
+    assertTrue(classes.contains("p.ListPetsOperation"));
+    assertFalse(classes.contains("p.GetPetOwnerOperation"));
+    assertFalse(classes.contains("p.ListStoresOperation"));
+  }
+
+  @Test
+  void includeOperationIds() throws Exception {
+    var classes =
+        compile(OperationFilter.newBuilder().includeOperationIds(List.of("listStores")).build());
+
+    assertTrue(classes.contains("p.ListStoresOperation"));
+    assertFalse(classes.contains("p.ListPetsOperation"));
+    assertFalse(classes.contains("p.GetPetOwnerOperation"));
+  }
+
+  @Test
+  void excludeOperationIds() throws Exception {
+    var classes =
+        compile(OperationFilter.newBuilder().excludeOperationIds(List.of("listStores")).build());
+
+    assertTrue(classes.contains("p.ListPetsOperation"));
+    assertTrue(classes.contains("p.GetPetOwnerOperation"));
+    assertFalse(classes.contains("p.ListStoresOperation"));
+  }
+
+  @Test
+  void includePaths() throws Exception {
+    var classes = compile(OperationFilter.newBuilder().includePaths(List.of("/pets/**")).build());
+
+    assertTrue(classes.contains("p.GetPetOwnerOperation"));
+    assertFalse(classes.contains("p.ListPetsOperation"), "/pets/** requires a trailing segment");
+    assertFalse(classes.contains("p.ListStoresOperation"));
+  }
+
+  @Test
+  void excludePaths() throws Exception {
+    var classes = compile(OperationFilter.newBuilder().excludePaths(List.of("/pets/*")).build());
+
+    assertTrue(classes.contains("p.ListPetsOperation"));
+    assertTrue(classes.contains("p.GetPetOwnerOperation"), "* does not match across path segments");
+    assertTrue(classes.contains("p.ListStoresOperation"));
+  }
+
+  @Test
+  void filtersWithTheSameGlobsAreEqual() {
+    assertEquals(
+        OperationFilter.newBuilder().includePaths(List.of("/pets/**")).build(),
+        OperationFilter.newBuilder().includePaths(List.of("/pets/**")).build());
+  }
+
+  @Test
+  void prunesUnreachableComponents() throws Exception {
+    var classes = compile(OperationFilter.newBuilder().includeTags(List.of("pets")).build());
+
+    assertTrue(
+        classes.containsAll(Set.of("p.Pet", "p.Toy", "p.Owner")),
+        "Components are reachable through parameters, responses, arrays and properties: "
+            + classes);
+    assertFalse(classes.contains("p.Store"));
+  }
+
+  private Set<String> compile(OperationFilter filter) throws Exception {
+    return LilyCompiler.compile(
+            DOCUMENT, outputDir, "p", CompilerOptions.newBuilder().operationFilter(filter).build())
+        .keySet();
+  }
+}
@@ -0,0 +1,91 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Lily generates the same sources regardless of how many threads it uses. */
+public class ParallelismTest {
+
+  private static final String DOCUMENT =
+      "openapi: 3.0.2\npaths:\n"
+          + IntStream.range(0, 50)
+              .mapToObj(
+                  i ->
+                      """
+                        /pets%1$d:
+                          get:
+                            operationId: getPets%1$d
+                            tags: [tag%2$d]
+                            responses:
+                              '200':
+                                content:
+                                  'application/json':
+                                    schema:
+                                      $ref: '#/components/schemas/Pet%1$d'
+                      """
+                          .formatted(i, i % 5))
+              .collect(Collectors.joining())
+          + "components:\n  schemas:\n"
+          + IntStream.range(0, 50)
+              .mapToObj(
+                  i ->
+                      """
+                          Pet%d:
+                            type: object
+                            properties:
+                              name:
+                                type: string
+                              toy:
+                                type: object
+                                properties:
+                                  name:
+                                    type: string
+                      """
+                          .formatted(i))
+              .collect(Collectors.joining());
+
+  @Test
+  void parallelCompilationMatchesSequentialCompilation(
+      @TempDir Path sequentialDir, @TempDir Path parallelDir) throws Exception {
+    var sequential =
+        LilyCompiler.compile(
+            DOCUMENT, sequentialDir, "p", CompilerOptions.newBuilder().parallelism(1).build());
+    var parallel =
+        LilyCompiler.compile(
+            DOCUMENT, parallelDir, "p", CompilerOptions.newBuilder().parallelism(8).build());
+
+    assertEquals(
+        contents(sequentialDir, sequential),
+        contents(parallelDir, parallel),
+        "The same files are generated with the same contents");
+  }
+
+  /** Map each FQN to the path of its source relative to the output directory, and its contents. */
+  private static Map<String, Map.Entry<Path, String>> contents(Path dir, Map<String, Path> fqns) {
+    return fqns.entrySet().stream()
+        .collect(
+            toMap(
+                Map.Entry::getKey,
+                entry -> Map.entry(dir.relativize(entry.getValue()), read(entry.getValue()))));
+  }
+
+  private static String read(Path path) {
+    try {
+      return Files.readString(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
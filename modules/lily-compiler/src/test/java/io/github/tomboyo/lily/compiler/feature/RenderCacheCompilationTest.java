@@ -0,0 +1,126 @@
+package io.github.tomboyo.lily.compiler.feature;
+
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.tomboyo.lily.compiler.CompilerOptions;
+import io.github.tomboyo.lily.compiler.LilyCompiler;
+import io.github.tomboyo.lily.compiler.ast.Ast;
+import io.github.tomboyo.lily.compiler.ast.AstInterface;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Sources rendered from the render cache are the same as sources rendered without it, for every
+ * kind of AST.
+ */
+public class RenderCacheCompilationTest {
+
+  private static final String DOCUMENT =
+      """
+      openapi: 3.0.2
+      paths:
+        /pets/{id}:
+          get:
+            operationId: getPet
+            tags: [pets]
+            parameters:
+              - name: id
+                in: path
+                required: true
+                schema:
+                  type: integer
+            responses:
+              '200':
+                headers:
+                  x-rate-limit:
+                    schema:
+                      type: integer
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Pet'
+              '404':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Error'
+      components:
+        schemas:
+          Pet:
+            oneOf:
+              - $ref: '#/components/schemas/Dog'
+              - $ref: '#/components/schemas/Cat'
+          Dog:
+            type: object
+            properties:
+              name:
+                $ref: '#/components/schemas/Name'
+          Cat:
+            type: object
+            properties:
+              lives:
+                type: integer
+          Name:
+            type: string
+          Error:
+            type: object
+            properties:
+              message:
+                type: string
+      """;
+
+  @Test
+  void cachedSourcesMatchRenderedSources(
+      @TempDir Path cacheDir, @TempDir Path uncached, @TempDir Path cold, @TempDir Path warm)
+      throws Exception {
+    var options = CompilerOptions.newBuilder().renderCacheDirectory(cacheDir).build();
+
+    var result =
+        LilyCompiler.compileWithResult(DOCUMENT, uncached, "p", CompilerOptions.defaults());
+    LilyCompiler.compile(DOCUMENT, cold, "p", options);
+    LilyCompiler.compile(DOCUMENT, warm, "p", options);
+
+    var kinds =
+        Arrays.stream(Ast.class.getPermittedSubclasses())
+            // No OAS document generates an AstInterface (see RenderCacheTest).
+            .filter(kind -> kind != AstInterface.class)
+            .map(Class::getSimpleName)
+            .collect(Collectors.toSet());
+    assertEquals(kinds, result.astNodes().keySet(), "The document generates every kind of AST");
+    try (var cached = Files.list(cacheDir)) {
+      assertEquals(result.sources().size(), cached.count(), "Every source was cached");
+    }
+    assertEquals(contents(uncached), contents(cold), "Sources added to the cache are unchanged");
+    assertEquals(contents(uncached), contents(warm), "Sources read from the cache are unchanged");
+    assertTrue(result.sources().size() > kinds.size());
+  }
+
+  /** Map the path of each source in the output directory to its contents. */
+  private static Map<Path, String> contents(Path dir) throws IOException {
+    try (var files = Files.walk(dir)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(file -> !dir.relativize(file).startsWith(".lily"))
+          .collect(
+              toMap(dir::relativize, RenderCacheCompilationTest::read, (a, b) -> a, TreeMap::new));
+    }
+  }
+
+  private static String read(Path path) {
+    try {
+      return Files.readString(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
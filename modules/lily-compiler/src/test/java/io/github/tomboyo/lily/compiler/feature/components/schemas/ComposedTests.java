@@ -167,6 +167,53 @@ property should be mandatory, the property is considered optional by the compose
       }
     }
 
+    @Nested
+    @ExtendWith(LilyExtension.class)
+    class FromReferencedAllOfSchema {
+      @BeforeAll
+      static void beforeAll(LilyTestSupport support) {
+        support.compileOas(
+            """
+            openapi: 3.0.3
+            components:
+              schemas:
+                Foo:
+                  allOf:
+                    - $ref: '#/components/schemas/Bar'
+                Bar:
+                  allOf:
+                    - $ref: '#/components/schemas/Baz'
+                Baz:
+            %s
+            """
+                .formatted(propertiesFragment.indent(6)));
+      }
+
+      @ParameterizedTest
+      @CsvSource({"Mandatory1", "Mandatory2"})
+      void mandatoryProperties(String name, LilyTestSupport support) {
+        assertPropertyIsMandatory(
+            name,
+            support,
+            """
+$refs to allOf components are followed, transitively, so properties which a referenced component
+considers mandatory are mandatory according to the composed schema as well.
+""");
+      }
+
+      @ParameterizedTest
+      @CsvSource({"Optional1", "Optional2", "Optional3"})
+      void optionalProperties(String name, LilyTestSupport support) {
+        assertPropertyIsOptional(
+            name,
+            support,
+            """
+$refs to allOf components are followed, transitively, so properties which a referenced component
+considers optional are optional according to the composed schema as well.
+""");
+      }
+    }
+
     @Nested
     @ExtendWith(LilyExtension.class)
     class FromAnyOfSchema {
@@ -0,0 +1,102 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.tomboyo.lily.compiler.ast.PackageName;
+import io.github.tomboyo.lily.compiler.oas.OasReader;
+import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AstGeneratorTest {
+
+  private static OpenApi openApi;
+
+  @BeforeAll
+  static void beforeAll() throws Exception {
+    var paths =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    """
+                      /things%1$d/{id}:
+                        parameters:
+                          - name: id
+                            in: path
+                            schema:
+                              type: string
+                        get:
+                          operationId: getThing%1$d
+                          tags: [tag%2$d]
+                          parameters:
+                            - name: filter
+                              in: query
+                              schema:
+                                type: object
+                                properties:
+                                  name:
+                                    type: string
+                          responses:
+                            '200':
+                              content:
+                                'application/json':
+                                  schema:
+                                    $ref: '#/components/schemas/Thing%1$d'
+                    """
+                        .formatted(i, i % 7))
+            .collect(Collectors.joining());
+    var schemas =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    """
+                        Thing%d:
+                          type: object
+                          properties:
+                            nested:
+                              type: object
+                              properties:
+                                values:
+                                  type: array
+                                  items:
+                                    type: integer
+                    """
+                        .formatted(i))
+            .collect(Collectors.joining());
+    openApi =
+        OasReader.fromString(
+            "openapi: 3.0.2\npaths:\n" + paths + "components:\n  schemas:\n" + schemas);
+  }
+
+  @Test
+  void parallelEvaluationMatchesSequentialEvaluation() {
+    var basePackage = PackageName.of("p");
+    var sequential = AstGenerator.evaluate(basePackage, openApi, OperationFilter.all(), 1).toList();
+    var parallel = AstGenerator.evaluate(basePackage, openApi, OperationFilter.all(), 8).toList();
+
+    assertEquals(sequential, parallel, "Parallel evaluation yields the same AST in the same order");
+  }
+
+  @Test
+  void evaluatesOnlySelectedOrigins() {
+    var basePackage = PackageName.of("p");
+    Predicate<String> origins =
+        origin ->
+            origin.equals("#/components/schemas/Thing3")
+                || origin.equals("getThing5")
+                || origin.equals(AstGenerator.API_ORIGIN);
+    var all =
+        AstGenerator.evaluateWithOrigins(basePackage, openApi, OperationFilter.all(), 1).toList();
+    var selected =
+        AstGenerator.evaluateWithOrigins(basePackage, openApi, OperationFilter.all(), 1, origins)
+            .toList();
+
+    assertEquals(
+        all.stream().filter(pair -> origins.test(pair.left())).toList(),
+        selected,
+        "Only AST from the selected origins is returned, as in a full evaluation");
+  }
+}
@@ -0,0 +1,62 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.tomboyo.lily.compiler.oas.OasReader;
+import io.github.tomboyo.lily.compiler.oas.model.OpenApi;
+import io.github.tomboyo.lily.compiler.oas.model.Ref;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ComposedSchemasTest {
+
+  @Test
+  void cyclesFlattenTheSameRegardlessOfOrder() throws Exception {
+    var openApi =
+        OasReader.fromString(
+            """
+            openapi: 3.0.2
+            components:
+              schemas:
+                A:
+                  allOf:
+                    - $ref: '#/components/schemas/B'
+                  properties:
+                    a:
+                      type: string
+                B:
+                  allOf:
+                    - $ref: '#/components/schemas/C'
+                  properties:
+                    b:
+                      type: string
+                C:
+                  allOf:
+                    - $ref: '#/components/schemas/A'
+                  properties:
+                    c:
+                      type: string
+            """);
+
+    for (var first : List.of("A", "B", "C")) {
+      var composedSchemas = RefResolver.of(openApi).composedSchemas();
+      composedSchemas.flatten(ref(first));
+      for (var name : List.of("A", "B", "C")) {
+        assertEquals(
+            flattenAlone(openApi, name),
+            composedSchemas.flatten(ref(name)),
+            name + " after " + first);
+      }
+    }
+    assertEquals(Set.of("a", "b", "c"), flattenAlone(openApi, "A").properties().keySet());
+  }
+
+  private static ComposedSchemas.Flattened flattenAlone(OpenApi openApi, String name) {
+    return RefResolver.of(openApi).composedSchemas().flatten(ref(name));
+  }
+
+  private static Ref ref(String name) {
+    return new Ref("#/components/schemas/" + name);
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.tomboyo.lily.compiler.ast.AstClass;
+import io.github.tomboyo.lily.compiler.ast.Field;
+import io.github.tomboyo.lily.compiler.ast.Fqn;
+import io.github.tomboyo.lily.compiler.ast.SimpleName;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class DistinctByNameTest {
+
+  private static final Fqn FOO = Fqn.newBuilder("p", "Foo").build();
+  private static final Fqn BAR = Fqn.newBuilder("p", "Bar").build();
+
+  @Test
+  void keepsTheFirstNodeWithEachNameInEncounterOrder() {
+    var foo = AstClass.of(FOO, List.of());
+    var bar = AstClass.of(BAR, List.of());
+    var conflictingFoo =
+        AstClass.of(
+            FOO,
+            List.of(
+                new Field(
+                    Fqn.newBuilder("java.lang", "String").build(),
+                    SimpleName.of("name"),
+                    "name",
+                    false)));
+
+    assertEquals(
+        List.of(foo, bar),
+        Stream.of(foo, bar, AstClass.of(FOO, List.of()), conflictingFoo)
+            .collect(DistinctByName.toList()));
+  }
+
+  @Test
+  void parallelStreamsKeepEncounterOrder() {
+    var ast =
+        Stream.iterate(0, i -> i + 1)
+            .limit(100)
+            .map(i -> AstClass.of(Fqn.newBuilder("p", "Type" + (i % 50)).build(), List.of()))
+            .toList();
+
+    assertEquals(ast.subList(0, 50), ast.parallelStream().collect(DistinctByName.toList()));
+  }
+}
@@ -0,0 +1,111 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.tomboyo.lily.compiler.oas.OasReader;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class OasDependencyGraphTest {
+
+  private static final String DOCUMENT =
+      """
+      openapi: 3.0.2
+      paths:
+        /owners:
+          get:
+            operationId: getOwners
+            parameters:
+              - $ref: '#/components/parameters/Limit'
+            responses:
+              '200':
+                content:
+                  'application/json':
+                    schema:
+                      $ref: '#/components/schemas/Owner'
+      components:
+        parameters:
+          Limit:
+            name: limit
+            in: query
+            schema:
+              $ref: '#/components/schemas/Limit'
+        schemas:
+          Limit:
+            type: integer
+          Owner:
+            type: object
+            properties:
+              pet:
+                $ref: '#/components/schemas/Pet'
+          Pet:
+            type: object
+            properties:
+              name:
+                type: %s
+          Unrelated:
+            type: object
+      """;
+
+  @Test
+  void unitsDependOnEveryComponentTheyTransitivelyReference() throws Exception {
+    var units =
+        OasDependencyGraph.evaluate(
+                OasReader.fromString(DOCUMENT.formatted("string")), OperationFilter.all())
+            .orElseThrow();
+
+    assertEquals(
+        Set.of(
+            "#/components/parameters/Limit",
+            "#/components/schemas/Limit",
+            "#/components/schemas/Owner",
+            "#/components/schemas/Pet"),
+        units.get("getOwners").dependencies());
+    assertEquals(
+        Set.of("#/components/schemas/Pet"), units.get("#/components/schemas/Owner").dependencies());
+    assertTrue(units.get("#/components/schemas/Unrelated").dependencies().isEmpty());
+  }
+
+  @Test
+  void fingerprintsChangeWithTheirDependencies() throws Exception {
+    var before =
+        OasDependencyGraph.evaluate(
+                OasReader.fromString(DOCUMENT.formatted("string")), OperationFilter.all())
+            .orElseThrow();
+    var after =
+        OasDependencyGraph.evaluate(
+                OasReader.fromString(DOCUMENT.formatted("integer")), OperationFilter.all())
+            .orElseThrow();
+
+    for (var origin :
+        Set.of("getOwners", "#/components/schemas/Owner", "#/components/schemas/Pet")) {
+      assertNotEquals(before.get(origin).fingerprint(), after.get(origin).fingerprint(), origin);
+    }
+    for (var origin :
+        Set.of(
+            AstGenerator.API_ORIGIN,
+            "#/components/schemas/Limit",
+            "#/components/schemas/Unrelated")) {
+      assertEquals(before.get(origin).fingerprint(), after.get(origin).fingerprint(), origin);
+    }
+  }
+
+  @Test
+  void documentsWithoutOperationIdsCanNotBeDivided() throws Exception {
+    var openApi =
+        OasReader.fromString(
+            """
+            openapi: 3.0.2
+            paths:
+              /owners:
+                get:
+                  responses:
+                    '204':
+                      description: ok
+            """);
+
+    assertTrue(OasDependencyGraph.evaluate(openApi, OperationFilter.all()).isEmpty());
+  }
+}
@@ -0,0 +1,76 @@
+package io.github.tomboyo.lily.compiler.icg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.tomboyo.lily.compiler.oas.OasReader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class RefResolverTest {
+
+  private static RefResolver resolver;
+
+  @BeforeAll
+  static void beforeAll() throws Exception {
+    resolver =
+        RefResolver.of(
+            OasReader.fromString(
+                """
+                openapi: 3.0.2
+                components:
+                  schemas:
+                    Pet:
+                      type: string
+                    a/b~c:
+                      type: string
+                  parameters:
+                    Id:
+                      name: id
+                      in: path
+                    IdAlias:
+                      $ref: '#/components/parameters/Id'
+                    Loop1:
+                      $ref: '#/components/parameters/Loop2'
+                    Loop2:
+                      $ref: '#/components/parameters/Loop1'
+                """));
+  }
+
+  @Test
+  void resolvesDefinitions() {
+    assertEquals("id", resolver.resolveParameter("#/components/parameters/Id").get().name().get());
+  }
+
+  @Test
+  void followsChainsOfRefs() {
+    assertEquals(
+        resolver.resolveParameter("#/components/parameters/Id"),
+        resolver.resolveParameter("#/components/parameters/IdAlias"));
+  }
+
+  @Test
+  void cyclesResolveToNothing() {
+    assertTrue(resolver.resolveParameter("#/components/parameters/Loop1").isEmpty());
+  }
+
+  @Test
+  void missingComponentsResolveToNothing() {
+    assertTrue(resolver.resolveParameter("#/components/parameters/Missing").isEmpty());
+  }
+
+  @Test
+  void componentsOfTheWrongTypeResolveToNothing() {
+    assertTrue(resolver.resolveHeader("#/components/parameters/Id").isEmpty());
+  }
+
+  @Test
+  void schemaName() {
+    assertEquals("Pet", resolver.schemaName("#/components/schemas/Pet"));
+  }
+
+  @Test
+  void schemaNameIsUnescaped() {
+    assertEquals("a/b~c", resolver.schemaName("#/components/schemas/a~1b~0c"));
+  }
+}
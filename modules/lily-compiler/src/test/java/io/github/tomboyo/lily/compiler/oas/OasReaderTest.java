@@ -0,0 +1,152 @@
+package io.github.tomboyo.lily.compiler.oas;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OasReaderTest {
+
+  /**
+   * Escaped solidi like {@code \/} are valid JSON but not valid YAML, so documents which use them
+   * are only read if they are read as JSON.
+   */
+  private static final String JSON =
+      """
+      { "openapi": "3.0.2", "paths": { "\\/a": {} } }
+      """;
+
+  /** A YAML flow mapping starts like JSON, but is not JSON. */
+  private static final String FLOW_MAPPING =
+      """
+      {openapi: 3.0.2, paths: {/a: {}}}
+      """;
+
+  @Test
+  void jsonFromString() throws Exception {
+    assertEquals(Set.of("/a"), OasReader.fromString(JSON).paths().keySet());
+  }
+
+  @Test
+  void flowMappingFromString() throws Exception {
+    assertEquals(Set.of("/a"), OasReader.fromString(FLOW_MAPPING).paths().keySet());
+  }
+
+  @Nested
+  class FromPath {
+    @TempDir Path sources;
+
+    @Test
+    void yaml() throws Exception {
+      var path =
+          Files.writeString(
+              sources.resolve("a.yaml"),
+              """
+              openapi: 3.0.2
+              paths:
+                /a: {}
+              """);
+
+      assertEquals(Set.of("/a"), OasReader.fromPath(path).paths().keySet());
+    }
+
+    @Test
+    void json() throws Exception {
+      var path = Files.writeString(sources.resolve("a.json"), JSON);
+
+      assertEquals(Set.of("/a"), OasReader.fromPath(path).paths().keySet());
+    }
+
+    @Test
+    void jsonWithoutExtension() throws Exception {
+      var path = Files.writeString(sources.resolve("a"), JSON);
+
+      assertEquals(Set.of("/a"), OasReader.fromPath(path).paths().keySet());
+    }
+
+    @Test
+    void flowMappingWithoutExtension() throws Exception {
+      var path = Files.writeString(sources.resolve("a"), FLOW_MAPPING);
+
+      assertEquals(Set.of("/a"), OasReader.fromPath(path).paths().keySet());
+      assertEquals(Set.of("/a"), OasReader.fromUrl(path.toUri().toURL()).paths().keySet());
+      assertEquals(
+          Set.of("/a"), OasReader.fromPath(path, sources.resolve("snapshots")).paths().keySet());
+    }
+  }
+
+  @Nested
+  class Snapshots {
+    @TempDir Path sources;
+    @TempDir Path snapshots;
+
+    @Test
+    void firstReadSavesSnapshot() throws Exception {
+      var openApi = OasReader.fromUrl(write("a.yaml", "/a"), snapshots);
+
+      assertEquals(Set.of("/a"), openApi.paths().keySet());
+      try (var files = Files.list(snapshots)) {
+        assertEquals(1, files.filter(p -> p.toString().endsWith(".smile")).count());
+      }
+    }
+
+    @Test
+    void laterReadsUseSnapshot() throws Exception {
+      var a = write("a.yaml", "/a");
+      var b = write("b.json", "/b");
+      OasReader.fromUrl(a, snapshots);
+      var aSnapshot = onlySnapshot();
+      Files.delete(aSnapshot);
+      OasReader.fromUrl(b, snapshots);
+      var bSnapshot = onlySnapshot();
+
+      // If a's snapshot is read in place of a, then we see b's paths.
+      Files.move(bSnapshot, aSnapshot, REPLACE_EXISTING);
+
+      assertEquals(Set.of("/b"), OasReader.fromUrl(a, snapshots).paths().keySet());
+    }
+
+    @Test
+    void unreadableSnapshotIsIgnored() throws Exception {
+      var a = write("a.yaml", "/a");
+      OasReader.fromUrl(a, snapshots);
+      Files.writeString(onlySnapshot(), "garbage");
+
+      assertEquals(Set.of("/a"), OasReader.fromUrl(a, snapshots).paths().keySet());
+    }
+
+    private URL write(String name, String path) throws IOException {
+      var content =
+          name.endsWith(".json")
+              ? """
+              { "openapi": "3.0.2", "paths": { "%s": {} } }
+              """
+                  .formatted(path)
+              : """
+              openapi: 3.0.2
+              paths:
+                %s: {}
+              """
+                  .formatted(path);
+      return Files.writeString(sources.resolve(name), content).toUri().toURL();
+    }
+
+    private Path onlySnapshot() throws IOException {
+      try (var files = Files.list(snapshots)) {
+        return files
+            .reduce(
+                (x, y) -> {
+                  throw new AssertionError("Expected exactly one snapshot");
+                })
+            .orElseThrow();
+      }
+    }
+  }
+}
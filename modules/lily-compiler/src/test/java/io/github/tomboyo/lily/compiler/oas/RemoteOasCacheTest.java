@@ -0,0 +1,142 @@
+package io.github.tomboyo.lily.compiler.oas;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import io.github.tomboyo.lily.compiler.OasParseException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+@ExtendWith(WireMockExtension.class)
+class RemoteOasCacheTest {
+
+  private static final String DOCUMENT =
+      """
+      openapi: 3.0.2
+      paths: {}
+      """;
+
+  @TempDir Path cacheDirectory;
+
+  @Test
+  void downloadsUncachedDocument(WireMockRuntimeInfo info) throws Exception {
+    stubFor(get("/spec.yaml").willReturn(aResponse().withStatus(200).withBody(DOCUMENT)));
+
+    var copy = RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    assertEquals(DOCUMENT, Files.readString(copy));
+  }
+
+  @Test
+  void sendsValidatorsAndReusesCopyWhenNotModified(WireMockRuntimeInfo info) throws Exception {
+    stubFor(
+        get("/spec.yaml")
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("ETag", "\"v1\"")
+                    .withHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+                    .withBody(DOCUMENT)));
+    RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    stubFor(get("/spec.yaml").willReturn(aResponse().withStatus(304)));
+    var copy = RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    verify(
+        getRequestedFor(urlEqualTo("/spec.yaml"))
+            .withHeader("If-None-Match", equalTo("\"v1\""))
+            .withHeader("If-Modified-Since", equalTo("Wed, 21 Oct 2015 07:28:00 GMT")));
+    assertEquals(DOCUMENT, Files.readString(copy));
+  }
+
+  @Test
+  void replacesCopyWhenModified(WireMockRuntimeInfo info) throws Exception {
+    stubFor(
+        get("/spec.yaml")
+            .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v1\"").withBody("old")));
+    RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    stubFor(
+        get("/spec.yaml")
+            .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v2\"").withBody("new")));
+    var copy = RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    assertEquals("new", Files.readString(copy));
+  }
+
+  @Test
+  void fallsBackToCopyOnServerError(WireMockRuntimeInfo info) throws Exception {
+    stubFor(get("/spec.yaml").willReturn(aResponse().withStatus(200).withBody(DOCUMENT)));
+    RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    stubFor(get("/spec.yaml").willReturn(aResponse().withStatus(503)));
+    var copy = RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    assertEquals(DOCUMENT, Files.readString(copy));
+  }
+
+  @Test
+  void failsOnServerErrorWithoutCopy(WireMockRuntimeInfo info) {
+    stubFor(get("/spec.yaml").willReturn(aResponse().withStatus(503)));
+
+    assertThrows(
+        OasParseException.class, () -> RemoteOasCache.fetch(uri(info), cacheDirectory, false));
+  }
+
+  @Test
+  void offlineUsesCopyWithoutNetwork(WireMockRuntimeInfo info) throws Exception {
+    stubFor(get("/spec.yaml").willReturn(aResponse().withStatus(200).withBody(DOCUMENT)));
+    RemoteOasCache.fetch(uri(info), cacheDirectory, false);
+
+    var copy = RemoteOasCache.fetch(uri(info), cacheDirectory, true);
+
+    verify(1, getRequestedFor(urlEqualTo("/spec.yaml")));
+    assertEquals(DOCUMENT, Files.readString(copy));
+  }
+
+  @Test
+  void offlineFailsWithoutCopy(WireMockRuntimeInfo info) {
+    assertThrows(
+        OasParseException.class, () -> RemoteOasCache.fetch(uri(info), cacheDirectory, true));
+    verify(0, getRequestedFor(urlEqualTo("/spec.yaml")));
+  }
+
+  @Test
+  void jsonFromAPathWithoutAnExtensionIsReadAsJson(WireMockRuntimeInfo info) throws Exception {
+    // SnakeYAML rejects the \/ escape, so this only parses as JSON.
+    stubFor(
+        get("/v3/api-docs")
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(
+                        """
+                        { "openapi": "3.0.2", "paths": { "\\/pets": {} } }
+                        """)));
+
+    var copy =
+        RemoteOasCache.fetch(
+            URI.create(info.getHttpBaseUrl() + "/v3/api-docs"), cacheDirectory, false);
+
+    assertEquals(Set.of("/pets"), OasReader.fromPath(copy).paths().keySet());
+  }
+
+  private static URI uri(WireMockRuntimeInfo info) {
+    return URI.create(info.getHttpBaseUrl() + "/spec.yaml");
+  }
+}
@@ -0,0 +1,62 @@
+package io.github.tomboyo.lily.compiler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ReferenceMapTest {
+
+  static Stream<Supplier<ReferenceMap<String, Object>>> maps() {
+    return Stream.of(ReferenceMap::weakValues, ReferenceMap::softValues);
+  }
+
+  @ParameterizedTest
+  @MethodSource("maps")
+  void returnsTheLiveValue(Supplier<ReferenceMap<String, Object>> maps) {
+    var map = maps.get();
+    var value = new Object();
+
+    assertSame(value, map.computeIfAbsent("key", key -> value));
+    assertSame(value, map.computeIfAbsent("key", key -> new Object()));
+    assertSame(value, map.get("key"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("maps")
+  void removesCollectedEntries(Supplier<ReferenceMap<String, Object>> maps) {
+    var map = maps.get();
+    var value = new Object();
+    map.computeIfAbsent("key", key -> value);
+
+    // Clear and enqueue the reference, as the garbage collector does once the value is unused.
+    map.referenceTo("key").enqueue();
+
+    assertNull(map.get("key"));
+    assertEquals(0, map.size(), "The entry is removed once its reference is enqueued");
+    var next = map.computeIfAbsent("key", key -> new Object());
+    assertNotSame(value, next);
+    assertSame(next, map.computeIfAbsent("key", key -> new Object()), "The new value is interned");
+  }
+
+  @ParameterizedTest
+  @MethodSource("maps")
+  void replacesClearedValuesBeforeTheyAreEnqueued(Supplier<ReferenceMap<String, Object>> maps) {
+    var map = maps.get();
+    var value = new Object();
+    map.computeIfAbsent("key", key -> value);
+
+    map.referenceTo("key").clear();
+
+    assertNull(map.get("key"));
+    var next = map.computeIfAbsent("key", key -> new Object());
+    assertNotSame(value, next);
+    assertSame(next, map.get("key"));
+    assertEquals(1, map.size());
+  }
+}